@@ -0,0 +1,87 @@
+#!/usr/bin/env bash
+#
+# 起動時間ベンチマーク (通常ビルド と 高速起動ビルド の比較)
+#
+# コンテナを起動してから /tasks が初めて 200 を返すまでの時間と、
+# その時点でのメモリ使用量 (RSS) を計測します。
+# 毎回 /data が空の新しいコンテナで計測します。
+#
+# 使い方:
+#   scripts/startup-benchmark.sh          # 5回ずつ計測
+#   scripts/startup-benchmark.sh 10       # 10回ずつ計測
+#   SKIP_BUILD=1 scripts/startup-benchmark.sh   # イメージをビルドし直さない
+#
+set -euo pipefail
+
+RUNS="${1:-5}"
+PORT="${PORT:-18080}"
+TIMEOUT_SEC="${TIMEOUT_SEC:-120}"
+CONTAINER="taskmanager-startup-bench"
+
+cd "$(dirname "$0")/.."
+
+# Basic認証の情報は application.properties から読む
+PROPS="src/main/resources/application.properties"
+AUTH_USER="$(grep '^spring.security.user.name=' "$PROPS" | cut -d= -f2-)"
+AUTH_PASS="$(grep '^spring.security.user.password=' "$PROPS" | cut -d= -f2-)"
+
+if [ -z "${SKIP_BUILD:-}" ]; then
+    echo "===== イメージをビルドします ====="
+    docker build -q -t taskmanager-app . > /dev/null
+    docker build -q -f Dockerfile.fast-start -t taskmanager-app-fast . > /dev/null
+fi
+
+cleanup() { docker rm -f "$CONTAINER" > /dev/null 2>&1 || true; }
+trap cleanup EXIT
+
+now_ms() { echo $(( $(date +%s%N) / 1000000 )); }
+
+# 1回分の計測: "起動時間(ms) RSS(MB)" を出力する
+measure_once() {
+    local image="$1"
+    cleanup
+    local start end deadline
+    start="$(now_ms)"
+    docker run -d --name "$CONTAINER" -p "$PORT:8080" "$image" > /dev/null
+    deadline=$(( start + TIMEOUT_SEC * 1000 ))
+    until curl -sf -o /dev/null -u "$AUTH_USER:$AUTH_PASS" "http://localhost:$PORT/tasks"; do
+        if [ "$(now_ms)" -gt "$deadline" ]; then
+            echo "タイムアウト: $image が ${TIMEOUT_SEC} 秒以内に起動しませんでした" >&2
+            docker logs "$CONTAINER" >&2 || true
+            exit 1
+        fi
+        sleep 0.05
+    done
+    end="$(now_ms)"
+    local rss_kb
+    rss_kb="$(docker exec "$CONTAINER" sh -c "grep VmRSS /proc/1/status" | awk '{print $2}')"
+    echo "$(( end - start )) $(( rss_kb / 1024 ))"
+}
+
+# 中央値
+median() { sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'; }
+
+report() {
+    local label="$1" image="$2"
+    local times=() rss=() i
+    for i in $(seq 1 "$RUNS"); do
+        local result t r
+        result="$(measure_once "$image")"
+        read -r t r <<< "$result"
+        times+=("$t")
+        rss+=("$r")
+        printf "  %-12s #%d  %6d ms  %5d MB\n" "$label" "$i" "$t" "$r"
+    done
+    printf "%-12s 中央値: 初回 /tasks まで %6d ms, RSS %5d MB\n" "$label" \
+        "$(printf '%s\n' "${times[@]}" | median)" "$(printf '%s\n' "${rss[@]}" | median)" >> "$SUMMARY"
+}
+
+SUMMARY="$(mktemp)"
+echo "===== 計測 (各 $RUNS 回) ====="
+report "通常" taskmanager-app
+report "高速起動" taskmanager-app-fast
+
+echo
+echo "===== 結果 ====="
+cat "$SUMMARY"
+rm -f "$SUMMARY"
@@ -0,0 +1,83 @@
+package com.example.taskmanager;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * 完了実績の集計 (ジャンル × 週 ごとに1行)
+ * タスクの完了・差し戻し・削除のたびに差分だけ加算/減算します。
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"genre_id", "week_start"}))
+public class CompletionRollup {
+
+    // ジャンルなしのタスクを集計する時の genreId
+    public static final long NO_GENRE = 0L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // ジャンルID (ジャンルが削除されても集計は残すため、関連ではなくIDで持つ)
+    @Column(name = "genre_id")
+    private Long genreId;
+
+    // 完了日の週 (月曜日)
+    @Column(name = "week_start")
+    private LocalDate weekStart;
+
+    // 完了したタスク数
+    private long completedCount;
+
+    // リードタイム (開始日 → 完了日) の日数の合計と、その対象件数 (開始日のあるタスクのみ)
+    private long leadTimeDaysTotal;
+    private long leadTimeCount;
+
+    // 終了日 (納期) のあるタスク数と、そのうち納期を過ぎて完了した数
+    private long dueCount;
+    private long overdueCount;
+
+    public CompletionRollup() {
+    }
+
+    public CompletionRollup(Long genreId, LocalDate weekStart) {
+        this.genreId = genreId;
+        this.weekStart = weekStart;
+    }
+
+    // --- 計算用 ---
+
+    public Double getAverageLeadTimeDays() {
+        return leadTimeCount == 0 ? null : (double) leadTimeDaysTotal / leadTimeCount;
+    }
+
+    public Double getOverdueRate() {
+        return dueCount == 0 ? null : (double) overdueCount / dueCount;
+    }
+
+    // --- Getter / Setter ---
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getGenreId() { return genreId; }
+    public void setGenreId(Long genreId) { this.genreId = genreId; }
+
+    public LocalDate getWeekStart() { return weekStart; }
+    public void setWeekStart(LocalDate weekStart) { this.weekStart = weekStart; }
+
+    public long getCompletedCount() { return completedCount; }
+    public void setCompletedCount(long completedCount) { this.completedCount = completedCount; }
+
+    public long getLeadTimeDaysTotal() { return leadTimeDaysTotal; }
+    public void setLeadTimeDaysTotal(long leadTimeDaysTotal) { this.leadTimeDaysTotal = leadTimeDaysTotal; }
+
+    public long getLeadTimeCount() { return leadTimeCount; }
+    public void setLeadTimeCount(long leadTimeCount) { this.leadTimeCount = leadTimeCount; }
+
+    public long getDueCount() { return dueCount; }
+    public void setDueCount(long dueCount) { this.dueCount = dueCount; }
+
+    public long getOverdueCount() { return overdueCount; }
+    public void setOverdueCount(long overdueCount) { this.overdueCount = overdueCount; }
+}
@@ -0,0 +1,37 @@
+package com.example.taskmanager;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface CompletionRollupRepository extends JpaRepository<CompletionRollup, Long> {
+
+    // 指定した週以降の集計 (ダッシュボード用)
+    List<CompletionRollup> findByWeekStartGreaterThanEqualOrderByWeekStartAscGenreIdAsc(LocalDate weekStart);
+
+    /**
+     * 1行分の差分を加算する (減算は負の値を渡す)
+     * 読んでから書くのではなく UPDATE 1文で行うので、同時に完了されても数がずれない
+     * 戻り値は更新した行数 (0なら行がまだない)
+     */
+    @Modifying
+    @Query("update CompletionRollup r set "
+            + "r.completedCount = r.completedCount + :completed, "
+            + "r.leadTimeDaysTotal = r.leadTimeDaysTotal + :leadTimeDays, "
+            + "r.leadTimeCount = r.leadTimeCount + :leadTimeCount, "
+            + "r.dueCount = r.dueCount + :due, "
+            + "r.overdueCount = r.overdueCount + :overdue "
+            + "where r.genreId = :genreId and r.weekStart = :weekStart")
+    int addDelta(@Param("genreId") Long genreId,
+                 @Param("weekStart") LocalDate weekStart,
+                 @Param("completed") long completed,
+                 @Param("leadTimeDays") long leadTimeDays,
+                 @Param("leadTimeCount") long leadTimeCount,
+                 @Param("due") long due,
+                 @Param("overdue") long overdue);
+}
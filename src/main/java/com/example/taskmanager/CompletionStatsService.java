@@ -0,0 +1,165 @@
+package com.example.taskmanager;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 完了実績の集計 (CompletionRollup) を管理するクラス
+ * タスクの状態変更と集計の更新を同じトランザクションで行い、両者がずれないようにします。
+ */
+@Service
+public class CompletionStatsService {
+
+    @Autowired private TaskRepository taskRepository;
+    @Autowired private CompletionRollupRepository rollupRepository;
+
+    // 集計行の作成は1つずつ行う (作った行がコミットされるまで、次に作ろうとするトランザクションを待たせる)
+    private final ReentrantLock rowCreation = new ReentrantLock();
+
+    // --- タスクの状態変更 (TaskController から呼ぶ) ---
+
+    @Transactional
+    public void complete(Task task) {
+        task.setCompleted(true);
+        task.setCompletedAt(LocalDateTime.now());
+        taskRepository.save(task);
+        apply(task, 1);
+    }
+
+    @Transactional
+    public void revert(Task task) {
+        if (task.isCompleted()) apply(task, -1);
+        task.setCompleted(false);
+        taskRepository.save(task);
+    }
+
+    @Transactional
+    public void delete(Task task) {
+        if (task.isCompleted()) apply(task, -1);
+        taskRepository.delete(task);
+    }
+
+    // 1タスク分を集計に加算 (sign = 1) / 減算 (sign = -1) する
+    private void apply(Task task, int sign) {
+        if (task.getCompletedAt() == null) return;
+        Long genreId = task.getGenre() != null ? task.getGenre().getId() : CompletionRollup.NO_GENRE;
+        CompletionRollup delta = new CompletionRollup(genreId, weekOf(task.getCompletedAt()));
+        accumulate(delta, task.getStartDate(), task.getEndDate(), task.getCompletedAt());
+
+        if (addDelta(delta, sign) == 0 && sign > 0) {
+            // その週の行がまだない: 他のトランザクションが作っている途中かもしれないので、順番を待ってから作る
+            lockRowCreationUntilCompletion();
+            // 待っている間に他のトランザクションが作っていれば、その行に加算する
+            if (addDelta(delta, sign) == 0) rollupRepository.saveAndFlush(delta);
+        }
+    }
+
+    private int addDelta(CompletionRollup delta, int sign) {
+        return rollupRepository.addDelta(delta.getGenreId(), delta.getWeekStart(),
+                sign * delta.getCompletedCount(),
+                sign * delta.getLeadTimeDaysTotal(),
+                sign * delta.getLeadTimeCount(),
+                sign * delta.getDueCount(),
+                sign * delta.getOverdueCount());
+    }
+
+    /**
+     * 集計行を作るためのロックを取り、このトランザクションが終わる (コミット/ロールバック) まで持ち続ける
+     * 同じジャンル・週を同時に完了しても、後のトランザクションは先の行がコミットされてから加算するので、
+     * 一意制約で失敗することも、別の接続を使うこともない
+     * (H2 のファイルDBは1つのアプリからしか開かないので、アプリ内のロックで足りる)
+     */
+    private void lockRowCreationUntilCompletion() {
+        if (rowCreation.isHeldByCurrentThread()) return;
+        rowCreation.lock();
+        try {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    rowCreation.unlock();
+                }
+            });
+        } catch (RuntimeException e) {
+            rowCreation.unlock();
+            throw e;
+        }
+    }
+
+    // --- 一括集計 (バックフィル) ---
+
+    // 集計がまだ1件もなく、完了済みタスクがある場合は起動時に作成する (初回導入時)
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillIfEmpty() {
+        if (rollupRepository.count() == 0 && taskRepository.countByIsCompletedTrue() > 0) {
+            System.out.println("===== 完了実績の集計を作成します =====");
+            int tasks = backfill();
+            System.out.println("===== 完了実績の集計が完了しました (" + tasks + " 件) =====");
+        }
+    }
+
+    /**
+     * 完了済みタスクから集計を作り直す
+     * 集計に必要な列だけを読み込み、メモリ上でまとめてから保存する
+     * 戻り値は集計したタスク数
+     */
+    @Transactional
+    public int backfill() {
+        // 作り直しの間に、完了処理が集計行を作らないようにする
+        lockRowCreationUntilCompletion();
+        Map<Long, Map<LocalDate, CompletionRollup>> rollups = new HashMap<>();
+        List<Object[]> rows = taskRepository.findCompletionFacts();
+        for (Object[] row : rows) {
+            Long genreId = row[0] != null ? (Long) row[0] : CompletionRollup.NO_GENRE;
+            LocalDateTime completedAt = (LocalDateTime) row[3];
+            if (completedAt == null) continue;
+            LocalDate week = weekOf(completedAt);
+            CompletionRollup rollup = rollups
+                    .computeIfAbsent(genreId, k -> new HashMap<>())
+                    .computeIfAbsent(week, k -> new CompletionRollup(genreId, week));
+            accumulate(rollup, (LocalDate) row[1], (LocalDate) row[2], completedAt);
+        }
+
+        rollupRepository.deleteAllInBatch();
+        rollups.values().forEach(byWeek -> rollupRepository.saveAll(byWeek.values()));
+        return rows.size();
+    }
+
+    // --- 共通処理 ---
+
+    private static void accumulate(CompletionRollup rollup, LocalDate startDate, LocalDate endDate, LocalDateTime completedAt) {
+        LocalDate completedDate = completedAt.toLocalDate();
+        rollup.setCompletedCount(rollup.getCompletedCount() + 1);
+        if (startDate != null) {
+            // 開始日より前に完了した場合は 0日 とする (負の日数で平均が下がらないように)
+            long leadTimeDays = Math.max(0, ChronoUnit.DAYS.between(startDate, completedDate));
+            rollup.setLeadTimeDaysTotal(rollup.getLeadTimeDaysTotal() + leadTimeDays);
+            rollup.setLeadTimeCount(rollup.getLeadTimeCount() + 1);
+        }
+        if (endDate != null) {
+            rollup.setDueCount(rollup.getDueCount() + 1);
+            if (completedDate.isAfter(endDate)) {
+                rollup.setOverdueCount(rollup.getOverdueCount() + 1);
+            }
+        }
+    }
+
+    // 完了日の週の月曜日
+    static LocalDate weekOf(LocalDateTime completedAt) {
+        return completedAt.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+}
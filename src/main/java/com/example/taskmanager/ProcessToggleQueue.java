@@ -0,0 +1,301 @@
+package com.example.taskmanager;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 工程チェックの書き込みをまとめるキュー (write-behind)
+ *
+ * クリックされた工程IDをメモリに溜め、数ミリ秒ごとに1回のトランザクションでまとめて保存します。
+ * 同じ工程を2回クリックした場合は打ち消し合うので、DBには何も書きません。
+ *
+ * 保存前の状態はこのクラスが覚えているので、画面表示の時に上書きして
+ * クリックした本人には常に最新の状態が見えるようにします (readWithPending)。
+ * ・保存待ち (pending) / 保存中 (inFlight): 「反転するかどうか」として持つ
+ * ・保存済み (resolved): 保存トランザクションの中で決まった「完了/未完了の値そのもの」として持つ
+ *   値そのものなので、DBを読んだのがコミットの前でも後でも、上書きすれば同じ結果になる
+ * resolved は、そのコミットより前にDBを読み始めた表示処理がなくなった時点で捨てます。
+ *
+ * taskmanager.process-toggle.write-behind=true の時だけ有効です。
+ */
+@Component
+public class ProcessToggleQueue {
+
+    // 終了時の保存の再試行回数
+    private static final int SHUTDOWN_FLUSH_ATTEMPTS = 3;
+
+    @Autowired private TaskProcessRepository taskProcessRepository;
+    @Autowired private TaskEventPublisher taskEventPublisher;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @PersistenceContext private EntityManager entityManager;
+
+    @Value("${taskmanager.process-toggle.write-behind:false}")
+    private boolean enabled;
+
+    @Value("${taskmanager.process-toggle.flush-interval-ms:20}")
+    private long flushIntervalMs;
+
+    // 保存済みの値 (保存した回の番号つき)
+    private record Resolved(boolean completed, long seq) {}
+
+    // まだ保存していない反転 (工程ID)
+    private Set<Long> pending = new HashSet<>();
+    // 保存中の反転 (保存トランザクションで値が決まるまで)
+    private Set<Long> inFlight = new HashSet<>();
+    // 保存で決まった値 (工程ID -> 値)
+    private final Map<Long, Resolved> resolved = new HashMap<>();
+    // 値を決めた保存の回数 / コミットまで終わった保存の回数
+    private long resolvedSeq = 0;
+    private long committedSeq = 0;
+    // 表示処理の読み込み中の数 (読み始めた時点の committedSeq -> 件数)
+    private final TreeMap<Long, Integer> activeReads = new TreeMap<>();
+    // 終了処理に入った後のクリックは、キューに入れずにその場で保存する
+    private boolean closed = false;
+
+    // 保存処理は同時に1つだけ (DB保守の間はこのロックを持って保存を止める)
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "process-toggle-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 終了時は残っている分を必ず保存してから止める
+     * まとめての保存が失敗し続けた場合は、1件ずつ別のトランザクションで保存する
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (!enabled) return;
+        synchronized (this) {
+            closed = true;
+        }
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        for (int attempt = 1; attempt <= SHUTDOWN_FLUSH_ATTEMPTS; attempt++) {
+            try {
+                flush();
+                return;
+            } catch (RuntimeException e) {
+                System.out.println("工程チェックの保存に失敗しました (" + attempt + "回目): " + e.getMessage());
+                Thread.sleep(100L * attempt);
+            }
+        }
+        Set<Long> remaining;
+        synchronized (this) {
+            remaining = pending;
+            pending = new HashSet<>();
+        }
+        for (Long id : remaining) {
+            try {
+                writeThrough(id);
+            } catch (RuntimeException e) {
+                System.out.println("工程チェックを保存できませんでした: process id=" + id + " " + e.getMessage());
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // 工程のチェックを反転する (同じ工程がキューにあれば打ち消す)
+    public void toggle(Long processId) {
+        synchronized (this) {
+            if (!closed) {
+                if (!pending.remove(processId)) pending.add(processId);
+                return;
+            }
+        }
+        // 終了処理中: キューはもう保存されないので、その場で保存する
+        writeThrough(processId);
+    }
+
+    /**
+     * タスクを読み込み、まだ保存されていない工程チェックを反映して返す (表示用)
+     * 読み込みの前に「読み始め」を登録しておくことで、この読み込みに必要な保存済みの値が
+     * 途中で捨てられないようにする
+     * 反映した工程はセッション上で読み取り専用にして、DBに書き戻されないようにする
+     */
+    public List<Task> readWithPending(Supplier<List<Task>> loader) {
+        if (!enabled) return loader.get();
+        long readStart = beginRead();
+        try {
+            List<Task> tasks = loader.get();
+            applyPending(tasks);
+            return tasks;
+        } finally {
+            endRead(readStart);
+        }
+    }
+
+    private synchronized long beginRead() {
+        activeReads.merge(committedSeq, 1, Integer::sum);
+        return committedSeq;
+    }
+
+    private synchronized void endRead(long readStart) {
+        activeReads.computeIfPresent(readStart, (k, n) -> n > 1 ? n - 1 : null);
+        evictResolved();
+    }
+
+    // 読み込み中のどの表示処理よりも前にコミットが終わった値は、DBから読めるので捨てる
+    private void evictResolved() {
+        long oldestRead = activeReads.isEmpty() ? committedSeq : Math.min(activeReads.firstKey(), committedSeq);
+        resolved.values().removeIf(r -> r.seq() <= oldestRead);
+    }
+
+    private void applyPending(Collection<Task> tasks) {
+        Set<Long> pendingNow;
+        Set<Long> inFlightNow;
+        Map<Long, Resolved> resolvedNow;
+        synchronized (this) {
+            if (pending.isEmpty() && inFlight.isEmpty() && resolved.isEmpty()) return;
+            pendingNow = new HashSet<>(pending);
+            inFlightNow = new HashSet<>(inFlight);
+            resolvedNow = new HashMap<>(resolved);
+        }
+        Session session = entityManager.unwrap(Session.class);
+        for (Task task : tasks) {
+            for (TaskProcess p : task.getProcesses()) {
+                Resolved r = resolvedNow.get(p.getId());
+                // 保存済みの値があればそれを、なければDBの値を基準にして、保存中・保存待ちの反転を重ねる
+                boolean base = r != null ? r.completed() : p.isCompleted();
+                boolean value = base ^ inFlightNow.contains(p.getId()) ^ pendingNow.contains(p.getId());
+                if (value == p.isCompleted()) continue;
+                if (session.contains(p)) session.setReadOnly(p, true);
+                p.setCompleted(value);
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        // DB保守などで止められている間は何もしない (次の回に保存する)
+        if (!flushLock.tryLock()) return;
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.out.println("工程チェックの保存に失敗しました (次回再試行): " + e.getMessage());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 溜まっている反転を1回のトランザクションで保存する
+     * 値はトランザクションの中で決まるので、コミットの前に resolved に移す
+     * (コミット前にDBを読んだ表示処理にも、コミット後に読んだ表示処理にも正しい値になる)
+     * 失敗した場合はキューに戻す (その間に同じ工程がクリックされていても、反転同士なので正しく合成される)
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushLocked() {
+        Set<Long> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) return;
+            batch = pending;
+            inFlight = batch;
+            pending = new HashSet<>();
+        }
+
+        Set<Long> taskIds = new HashSet<>();
+        Map<Long, Resolved> replaced = new HashMap<>();
+        long seq;
+        synchronized (this) {
+            seq = ++resolvedSeq;
+        }
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                Map<Long, Boolean> values = new HashMap<>();
+                for (TaskProcess p : taskProcessRepository.findAllById(batch)) {
+                    p.setCompleted(!p.isCompleted());
+                    values.put(p.getId(), p.isCompleted());
+                    if (p.getTask() != null) taskIds.add(p.getTask().getId());
+                }
+                taskProcessRepository.flush();
+                synchronized (this) {
+                    values.forEach((id, value) -> replaced.put(id, resolved.put(id, new Resolved(value, seq))));
+                    inFlight = new HashSet<>();
+                }
+            });
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                // 決めた値を取り消し、反転をキューに戻す
+                replaced.forEach((id, previous) -> {
+                    if (previous != null) {
+                        resolved.put(id, previous);
+                    } else {
+                        resolved.remove(id);
+                    }
+                });
+                batch.forEach(id -> {
+                    if (!pending.remove(id)) pending.add(id);
+                });
+                inFlight = new HashSet<>();
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            committedSeq = seq;
+            evictResolved();
+        }
+        // コミット後に他のクライアントへ通知
+        taskIds.forEach(id -> taskEventPublisher.publish(TaskEventPublisher.PROCESS_TOGGLED, id));
+    }
+
+    /**
+     * 保存を止めた状態で処理を実行する (DB保守用)
+     * 溜まっている分を先に保存し、処理中のクリックはキューに溜めておく
+     */
+    public void pauseWhile(Runnable action) {
+        flushLock.lock();
+        try {
+            flushLocked();
+            action.run();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // 1件だけその場で保存する
+    private void writeThrough(Long processId) {
+        Long taskId = new TransactionTemplate(transactionManager).execute(status ->
+                taskProcessRepository.findById(processId).map(p -> {
+                    p.setCompleted(!p.isCompleted());
+                    return p.getTask() != null ? p.getTask().getId() : null;
+                }).orElse(null));
+        taskEventPublisher.publish(TaskEventPublisher.PROCESS_TOGGLED, taskId);
+    }
+}
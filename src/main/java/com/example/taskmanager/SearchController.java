@@ -0,0 +1,34 @@
+package com.example.taskmanager;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+@Controller
+public class SearchController {
+
+    // 1回の検索で表示する最大件数
+    private static final int MAX_RESULTS = 100;
+
+    @Autowired private TaskSearchIndex taskSearchIndex;
+    @Autowired private TaskRepository taskRepository;
+
+    // 全文検索 (未完了・アーカイブの両方が対象)
+    @GetMapping("/search")
+    public String search(@RequestParam(value = "q", required = false) String query, Model model) {
+        List<Task> tasks = List.of();
+        if (query != null && !query.isBlank()) {
+            List<Long> ids = taskSearchIndex.search(query);
+            tasks = new ArrayList<>(taskRepository.findAllById(ids.subList(0, Math.min(ids.size(), MAX_RESULTS))));
+            tasks.sort(Comparator.comparing(Task::getId).reversed());
+        }
+        model.addAttribute("query", query);
+        model.addAttribute("tasks", tasks);
+        return "search";
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.taskmanager;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * 完了実績の表示 (集計テーブル CompletionRollup だけを読む。タスク本体は読まない)
+ */
+@Controller
+public class StatsController {
+
+    // 表示できる期間の上限 (10年。大きすぎる値で日付の計算があふれないように)
+    static final int MAX_WEEKS = 520;
+
+    @Autowired private CompletionRollupRepository rollupRepository;
+    @Autowired private CompletionStatsService completionStatsService;
+    @Autowired private GenreRepository genreRepository;
+
+    // 実績ダッシュボード
+    @GetMapping("/stats")
+    public String stats(@RequestParam(value = "weeks", defaultValue = "12") int weeks, Model model) {
+        weeks = clampWeeks(weeks);
+        List<CompletionRollup> rollups = findRecent(weeks);
+
+        // ジャンルごとの期間合計
+        Map<Long, CompletionRollup> totals = new LinkedHashMap<>();
+        for (CompletionRollup r : rollups) {
+            CompletionRollup total = totals.computeIfAbsent(r.getGenreId(), id -> new CompletionRollup(id, null));
+            total.setCompletedCount(total.getCompletedCount() + r.getCompletedCount());
+            total.setLeadTimeDaysTotal(total.getLeadTimeDaysTotal() + r.getLeadTimeDaysTotal());
+            total.setLeadTimeCount(total.getLeadTimeCount() + r.getLeadTimeCount());
+            total.setDueCount(total.getDueCount() + r.getDueCount());
+            total.setOverdueCount(total.getOverdueCount() + r.getOverdueCount());
+        }
+
+        model.addAttribute("weeks", weeks);
+        model.addAttribute("totals", totals.values());
+        model.addAttribute("rollups", rollups);
+        model.addAttribute("genreNames", genreNames());
+        return "stats";
+    }
+
+    // 同じ内容のJSON (例: /api/stats?weeks=12)
+    @GetMapping("/api/stats")
+    @ResponseBody
+    public List<Map<String, Object>> statsJson(@RequestParam(value = "weeks", defaultValue = "12") int weeks) {
+        Map<Long, String> genreNames = genreNames();
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (CompletionRollup r : findRecent(weeks)) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("weekStart", r.getWeekStart());
+            item.put("genreId", r.getGenreId() == CompletionRollup.NO_GENRE ? null : r.getGenreId());
+            item.put("genreName", genreNames.get(r.getGenreId()));
+            item.put("completed", r.getCompletedCount());
+            item.put("averageLeadTimeDays", r.getAverageLeadTimeDays());
+            item.put("overdueRate", r.getOverdueRate());
+            result.add(item);
+        }
+        return result;
+    }
+
+    // 集計の作り直し (タスクを直接DBで修正した場合など)
+    @PostMapping("/stats/backfill")
+    public String backfill() {
+        completionStatsService.backfill();
+        return "redirect:/stats";
+    }
+
+    private List<CompletionRollup> findRecent(int weeks) {
+        LocalDate from = CompletionStatsService.weekOf(LocalDateTime.now()).minusWeeks(clampWeeks(weeks) - 1);
+        // 差し戻しで0件になった行は表示しない
+        return rollupRepository.findByWeekStartGreaterThanEqualOrderByWeekStartAscGenreIdAsc(from).stream()
+                .filter(r -> r.getCompletedCount() > 0)
+                .toList();
+    }
+
+    // 1 〜 MAX_WEEKS 週に収める
+    static int clampWeeks(int weeks) {
+        return Math.min(Math.max(weeks, 1), MAX_WEEKS);
+    }
+
+    private Map<Long, String> genreNames() {
+        Map<Long, String> names = new HashMap<>();
+        genreRepository.findAll().forEach(g -> names.put(g.getId(), g.getName()));
+        names.put(CompletionRollup.NO_GENRE, "ジャンルなし");
+        return names;
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.taskmanager;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.*;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * H2 データベースファイル (/data/taskdb.mv.db) の保守
+ *
+ * ・バックアップ: 毎晩 BACKUP TO で圧縮(zip)バックアップを作成 (DBを止めずに取れる)
+ * ・圧縮: 使用率 (fill rate) が閾値を下回っている時だけ、SHUTDOWN COMPACT で不要なページを詰める
+ *   数秒間DBが閉じるので、アクセスの少ない時間帯に実行する
+ *   接続プールの貸し出しを止め (spring.datasource.hikari.allow-pool-suspension=true が必要)、
+ *   使用中の接続がすべて返ってきてから圧縮する。その間に接続を取りに来たリクエストは圧縮が終わるまで待つ
+ *   (工程チェックの保存も止める。再開後の接続でDBは自動的に開き直される)
+ * ・メトリクス: ファイルサイズ、使用率 (fill rate)、バックアップ・圧縮にかかった時間
+ *   使用率は定期的に取得した値を返す (メトリクスの取得ごとにDBへ問い合わせない)
+ *   (/actuator/metrics/taskdb.* で確認できます)
+ *
+ * ファイルDB (jdbc:h2:file:...) の時だけ動きます。
+ */
+@Component
+public class StorageMaintenance {
+
+    private static final String FILE_URL_PREFIX = "jdbc:h2:file:";
+    private static final String BACKUP_PREFIX = "taskdb-";
+    private static final DateTimeFormatter BACKUP_NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    @Autowired private DataSource dataSource;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private MeterRegistry meterRegistry;
+    @Autowired private ProcessToggleQueue processToggleQueue;
+
+    @Value("${spring.datasource.url:}")
+    private String datasourceUrl;
+
+    @Value("${taskmanager.storage.backup-dir:/data/backup}")
+    private String backupDir;
+
+    // 残すバックアップの数
+    @Value("${taskmanager.storage.backup-keep:7}")
+    private int backupKeep;
+
+    // 使用率 (%) がこれ未満の時だけ圧縮する
+    @Value("${taskmanager.storage.compact-max-fill-rate:60}")
+    private double compactMaxFillRate;
+
+    // 圧縮の前に、使用中の接続が返ってくるのを待つ時間 (過ぎたら圧縮を次回に延期する)
+    @Value("${taskmanager.storage.compact-wait-ms:10000}")
+    private long compactWaitMs;
+
+    private Timer backupTimer;
+    private Timer compactTimer;
+
+    // 最後に取得した使用率 (%)
+    private volatile double lastFillRate = Double.NaN;
+    // 圧縮中は使用率の取得を行わない (閉じたDBを開き直してしまうため)
+    private volatile boolean compacting = false;
+
+    @PostConstruct
+    public void registerMetrics() {
+        if (!isFileDatabase()) return;
+        Gauge.builder("taskdb.file.size", this::fileSize)
+                .description("H2 データベースファイルのサイズ")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("taskdb.fill.rate", () -> lastFillRate)
+                .description("H2 データベースファイルのうち、使われているページの割合 (%)")
+                .register(meterRegistry);
+        backupTimer = Timer.builder("taskdb.backup.duration")
+                .description("オンラインバックアップにかかった時間")
+                .register(meterRegistry);
+        compactTimer = Timer.builder("taskdb.compact.duration")
+                .description("ファイル圧縮にかかった時間")
+                .register(meterRegistry);
+    }
+
+    // --- バックアップ ---
+
+    @Scheduled(cron = "${taskmanager.storage.backup-cron:0 0 3 * * *}")
+    public void backup() {
+        if (!isFileDatabase()) return;
+        backupTimer.record(() -> {
+            try {
+                Path dir = Paths.get(backupDir);
+                Files.createDirectories(dir);
+                Path file = dir.resolve(BACKUP_PREFIX + LocalDateTime.now().format(BACKUP_NAME) + ".zip");
+                jdbcTemplate.execute("BACKUP TO '" + file.toString().replace("'", "''") + "'");
+                System.out.println("===== バックアップを作成しました: " + file + " =====");
+                pruneBackups(dir);
+            } catch (IOException e) {
+                System.out.println("バックアップに失敗しました: " + e.getMessage());
+            }
+        });
+    }
+
+    // 古いバックアップを削除する (ファイル名に日時が入っているので名前順 = 作成順)
+    private void pruneBackups(Path dir) throws IOException {
+        List<Path> backups;
+        try (Stream<Path> files = Files.list(dir)) {
+            backups = files
+                    .filter(p -> p.getFileName().toString().startsWith(BACKUP_PREFIX))
+                    .filter(p -> p.getFileName().toString().endsWith(".zip"))
+                    .sorted()
+                    .toList();
+        }
+        for (int i = 0; i < backups.size() - backupKeep; i++) {
+            Files.deleteIfExists(backups.get(i));
+        }
+    }
+
+    // --- 圧縮 ---
+
+    @Scheduled(cron = "${taskmanager.storage.compact-cron:0 30 3 * * *}")
+    public void compact() {
+        if (!isFileDatabase()) return;
+        double fillRate = sampleFillRate();
+        if (Double.isNaN(fillRate) || fillRate >= compactMaxFillRate) {
+            System.out.println("===== DBファイルの圧縮は不要です (使用率 " + fillRate + "%) =====");
+            return;
+        }
+        if (!(dataSource instanceof HikariDataSource hikari) || hikari.getHikariPoolMXBean() == null) {
+            System.out.println("===== 接続プールを止められないため、DBファイルを圧縮しません =====");
+            return;
+        }
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+
+        double before = fileSize();
+        AtomicBoolean compacted = new AtomicBoolean();
+        compacting = true;
+        try {
+            // 溜まっている工程チェックを保存してから、圧縮が終わるまで保存を止める
+            processToggleQueue.pauseWhile(() -> compacted.set(compactExclusively(pool)));
+        } finally {
+            compacting = false;
+        }
+        if (!compacted.get()) {
+            System.out.println("===== DBを使用中のため、圧縮を次回に延期します =====");
+            return;
+        }
+        System.out.println("===== DBファイルを圧縮しました: " + (long) before + " -> " + (long) fileSize() + " bytes =====");
+        sampleFillRate();
+    }
+
+    /**
+     * 接続プールの貸し出しを止めて、他の接続がすべて返ってきてから圧縮する
+     * 圧縮に使う接続は止める前に借りておく。止めている間に接続を取りに来たリクエストは、
+     * 再開まで待たされるだけで、使用中の接続が途中で切られることはない
+     * 戻り値は圧縮したかどうか (待っても接続が返ってこなかった場合は圧縮しない)
+     */
+    private boolean compactExclusively(HikariPoolMXBean pool) {
+        Connection connection;
+        try {
+            connection = dataSource.getConnection();
+        } catch (SQLException e) {
+            System.out.println("DBファイルの圧縮に失敗しました: " + e.getMessage());
+            return false;
+        }
+        pool.suspendPool();
+        try {
+            if (!awaitOtherConnectionsReturned(pool)) return false;
+            long start = System.nanoTime();
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SHUTDOWN COMPACT");
+            }
+            compactTimer.record(Duration.ofNanos(System.nanoTime() - start));
+            // 閉じられた接続をプールから捨てる (再開後に新しく接続し、DBも開き直される)
+            pool.softEvictConnections();
+            return true;
+        } catch (SQLException e) {
+            System.out.println("DBファイルの圧縮に失敗しました: " + e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // 圧縮で閉じられている
+            } finally {
+                pool.resumePool();
+            }
+        }
+    }
+
+    // 圧縮に使う1本以外の接続が、すべてプールに返ってくるまで待つ
+    private boolean awaitOtherConnectionsReturned(HikariPoolMXBean pool) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(compactWaitMs);
+        while (pool.getActiveConnections() > 1) {
+            if (System.nanoTime() > deadline) return false;
+            Thread.sleep(50);
+        }
+        return true;
+    }
+
+    // --- メトリクス ---
+
+    // 使用率を取得して覚えておく (ゲージはこの値を返す)
+    @Scheduled(fixedDelayString = "${taskmanager.storage.metrics-interval-ms:60000}")
+    public void refreshFillRate() {
+        sampleFillRate();
+    }
+
+    private double sampleFillRate() {
+        if (!isFileDatabase() || compacting) return lastFillRate;
+        lastFillRate = fillRate();
+        return lastFillRate;
+    }
+
+    private double fileSize() {
+        try {
+            return Files.size(databaseFile());
+        } catch (IOException e) {
+            return Double.NaN;
+        }
+    }
+
+    private double fillRate() {
+        try {
+            String value = jdbcTemplate.queryForObject(
+                    "select SETTING_VALUE from INFORMATION_SCHEMA.SETTINGS where SETTING_NAME = 'info.FILL_RATE'",
+                    String.class);
+            return value != null ? Double.parseDouble(value) : Double.NaN;
+        } catch (RuntimeException e) {
+            return Double.NaN;
+        }
+    }
+
+    // --- 共通処理 ---
+
+    private boolean isFileDatabase() {
+        return datasourceUrl.startsWith(FILE_URL_PREFIX);
+    }
+
+    // "jdbc:h2:file:/data/taskdb;CACHE_SIZE=..." -> "/data/taskdb.mv.db"
+    private Path databaseFile() {
+        String path = datasourceUrl.substring(FILE_URL_PREFIX.length());
+        int options = path.indexOf(';');
+        if (options >= 0) path = path.substring(0, options);
+        return Paths.get(path + ".mv.db");
+    }
+}
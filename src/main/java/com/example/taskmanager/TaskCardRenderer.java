@@ -0,0 +1,114 @@
+package com.example.taskmanager;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.context.IExpressionContext;
+import org.thymeleaf.linkbuilder.StandardLinkBuilder;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ITemplateResolver;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * SSE で配信するイベントのデータを作るクラス
+ *
+ * 変更のあったタスクのカード (tasks.html の taskCard) とガントチャート用のデータを
+ * イベント1件につき1回だけ描画し、全クライアントに同じ内容を送ります。
+ * (クライアントごとにカードや一覧を取り直させると、接続数の分だけDBの読み込みと描画が走るため)
+ *
+ * データは JSON です。
+ * ・ボードに表示するタスク: {"id": タスクID, "html": カードのHTML, "timeline": ガントチャートの1タスク分}
+ * ・完了済み・削除済みのタスク: {"id": タスクID, "removed": true}
+ * ・描画に失敗した場合: {"id": タスクID, "stale": true} (クライアントは一覧を取り直す)
+ */
+@Component
+public class TaskCardRenderer {
+
+    @Autowired private TaskRepository taskRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private ITemplateResolver templateResolver;
+    // ProcessToggleQueue -> TaskEventPublisher -> このクラス で循環するので、使う時に取得する
+    @Autowired private ObjectProvider<ProcessToggleQueue> processToggleQueue;
+
+    @Value("${server.servlet.context-path:}")
+    private String contextPath;
+
+    private SpringTemplateEngine templateEngine;
+
+    @PostConstruct
+    public void init() {
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        // リクエストの外 (保存キューのスレッドなど) でも描画するので、"/..." のリンクには設定のコンテキストパスを付ける
+        templateEngine.setLinkBuilder(new StandardLinkBuilder() {
+            @Override
+            protected String computeContextPath(IExpressionContext context, String base, Map<String, Object> parameters) {
+                return contextPath;
+            }
+        });
+    }
+
+    /**
+     * タスクのカードを描画してイベントのデータにする
+     * (ボードに表示しないタスクは removed になる)
+     * カードのフォームにはCSRFトークンが入らないので、クライアント側でページのものを補うこと
+     */
+    public String render(Long taskId) {
+        Map<String, Object> data;
+        try {
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            data = readOnly.execute(status -> {
+                // まだ保存されていない工程チェックも反映する (一覧の表示と同じ)
+                List<Task> tasks = processToggleQueue.getObject().readWithPending(() -> taskRepository.findById(taskId)
+                        .filter(task -> !task.isCompleted())
+                        .map(List::of)
+                        .orElse(List.of()));
+                if (tasks.isEmpty()) return null;
+
+                Context context = new Context();
+                context.setVariable("tasks", tasks);
+                Map<String, Object> card = new LinkedHashMap<>();
+                card.put("id", taskId);
+                card.put("html", templateEngine.process("tasks", Set.of("taskCard"), context));
+                card.put("timeline", TimelineController.timelineItem(tasks.get(0), null, null));
+                return card;
+            });
+        } catch (RuntimeException e) {
+            System.out.println("タスクカードの描画に失敗しました: task id=" + taskId + " " + e.getMessage());
+            return marker(taskId, "stale");
+        }
+        return data != null ? toJson(data) : removed(taskId);
+    }
+
+    // カードを消すだけのイベントのデータ (完了・削除)
+    public String removed(Long taskId) {
+        return marker(taskId, "removed");
+    }
+
+    private String marker(Long taskId, String flag) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", taskId);
+        data.put(flag, true);
+        return toJson(data);
+    }
+
+    private String toJson(Map<String, Object> data) {
+        try {
+            return objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -6,7 +6,6 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*; // まとめてインポート
 import org.springframework.web.multipart.MultipartFile;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Comparator;
 import java.util.UUID;
@@ -21,11 +20,17 @@ public class TaskController {
     @Autowired private RelatedURLRepository relatedURLRepository;
     @Autowired private TaskProcessRepository taskProcessRepository;
     @Autowired private TaskImageRepository taskImageRepository;
+    @Autowired private TaskEventPublisher taskEventPublisher;
+    @Autowired private TaskSearchIndex taskSearchIndex;
+    @Autowired private TaskTimelineIndex taskTimelineIndex;
+    @Autowired private CompletionStatsService completionStatsService;
+    @Autowired private ProcessToggleQueue processToggleQueue;
     
     
     // --- 共通処理 ---
     private void loadTaskData(Model model) {
-        var tasks = taskRepository.findByIsCompletedFalse();
+        // まだ保存されていない工程チェックを反映して読み込む (ソートより前に)
+        var tasks = processToggleQueue.readWithPending(taskRepository::findByIsCompletedFalse);
         // ★変更: Task::getSortDate を使用
         tasks.sort(Comparator.comparing(Task::getSortDate));
         model.addAttribute("tasks", tasks);
@@ -42,6 +47,13 @@ public class TaskController {
         return "tasks";
     }
 
+    // タスク一覧部分だけを返す (SSE が再接続した時に、切れていた間の変更をまとめて取り直す用)
+    @GetMapping("/tasks/list")
+    public String taskListArea(Model model) {
+        loadTaskData(model);
+        return "tasks :: taskListArea";
+    }
+
     // タスク作成
     @PostMapping("/tasks/create")
     public String createTask(
@@ -117,15 +129,19 @@ public class TaskController {
             }
         }
         taskRepository.save(newTask);
+        taskSearchIndex.index(newTask);
+        taskTimelineIndex.index(newTask);
+        taskEventPublisher.publish(TaskEventPublisher.CREATED, newTask.getId());
         return "redirect:/tasks";
     }
 
     @PostMapping("/tasks/{id}/complete")
     public String completeTask(@PathVariable("id") Long id) {
         taskRepository.findById(id).ifPresent(task -> {
-            task.setCompleted(true);
-            task.setCompletedAt(LocalDateTime.now());
-            taskRepository.save(task);
+            if (task.isCompleted()) return;
+            completionStatsService.complete(task);
+            taskTimelineIndex.remove(id);
+            taskEventPublisher.publish(TaskEventPublisher.COMPLETED, id);
         });
         return "redirect:/tasks";
     }
@@ -133,7 +149,8 @@ public class TaskController {
     @GetMapping("/tasks/{id}/edit")
     public String editTaskForm(@PathVariable("id") Long id, Model model) {
         var taskOpt = taskRepository.findById(id);
-        if (taskOpt.isPresent()) {
+        // 完了済みのタスクは編集できない (完了実績の集計がずれるため。編集するには未完了に戻す)
+        if (taskOpt.isPresent() && !taskOpt.get().isCompleted()) {
             model.addAttribute("task", taskOpt.get());
             model.addAttribute("allGenres", genreRepository.findAll());
             return "edit_task";
@@ -160,6 +177,8 @@ public class TaskController {
     ) {
         var taskOpt = taskRepository.findById(id);
         if (taskOpt.isEmpty()) return "redirect:/tasks";
+        // 完了済みのタスクは更新しない (完了時に集計した値と、差し戻し・削除時に引く値がずれるため)
+        if (taskOpt.get().isCompleted()) return "redirect:/archive";
         
         Task taskToUpdate = taskOpt.get();
         taskToUpdate.setTitle(title);
@@ -215,13 +234,21 @@ public class TaskController {
         }
 
         taskRepository.save(taskToUpdate);
+        taskSearchIndex.index(taskToUpdate);
+        taskTimelineIndex.index(taskToUpdate);
+        taskEventPublisher.publish(TaskEventPublisher.UPDATED, id);
         return "redirect:/tasks";
     }
 
     // ... (delete, archive, revert はそのまま) ...
     @PostMapping("/tasks/{id}/delete")
     public String deleteTask(@PathVariable("id") Long id) {
-        taskRepository.deleteById(id);
+        taskRepository.findById(id).ifPresent(task -> {
+            completionStatsService.delete(task);
+            taskSearchIndex.remove(id);
+            taskTimelineIndex.remove(id);
+            taskEventPublisher.publish(TaskEventPublisher.DELETED, id);
+        });
         return "redirect:/tasks";
     }
     @GetMapping("/archive")
@@ -232,8 +259,9 @@ public class TaskController {
     @PostMapping("/tasks/{id}/revert")
     public String revertTask(@PathVariable("id") Long id) {
         taskRepository.findById(id).ifPresent(task -> {
-            task.setCompleted(false);
-            taskRepository.save(task);
+            completionStatsService.revert(task);
+            taskTimelineIndex.index(task);
+            taskEventPublisher.publish(TaskEventPublisher.REVERTED, id);
         });
         return "redirect:/archive";
     }
@@ -241,9 +269,16 @@ public class TaskController {
     // ★変更: URLパスを /processes/... に変更
     @PostMapping("/processes/{id}/toggle")
     public String toggleProcess(@PathVariable("id") Long id, Model model) {
+        if (processToggleQueue.isEnabled()) {
+            // まとめて保存するモード: キューに入れるだけ (通知は保存後にキュー側から送る)
+            processToggleQueue.toggle(id);
+            loadTaskData(model);
+            return "tasks :: taskListArea";
+        }
         taskProcessRepository.findById(id).ifPresent(p -> {
             p.setCompleted(!p.isCompleted());
             taskProcessRepository.save(p);
+            taskEventPublisher.publish(TaskEventPublisher.PROCESS_TOGGLED, p.getTask().getId());
         });
         loadTaskData(model);
         return "tasks :: taskListArea";
@@ -258,6 +293,7 @@ public class TaskController {
                 Files.deleteIfExists(filePath);
             } catch (IOException e) { e.printStackTrace(); }
             taskImageRepository.delete(image);
+            taskEventPublisher.publish(TaskEventPublisher.IMAGE_REMOVED, image.getTask().getId());
         });
         loadTaskData(model);
         return "tasks :: taskListArea";
@@ -0,0 +1,21 @@
+package com.example.taskmanager;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@Controller
+public class TaskEventController {
+
+    @Autowired private TaskEventPublisher taskEventPublisher;
+
+    // ボード変更の SSE ストリーム
+    @GetMapping(value = "/tasks/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter streamEvents() {
+        return taskEventPublisher.subscribe();
+    }
+}
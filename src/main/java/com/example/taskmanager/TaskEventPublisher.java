@@ -0,0 +1,177 @@
+package com.example.taskmanager;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ボードの変更を SSE (Server-Sent Events) で接続中のクライアントへ配信するクラス
+ * イベントのデータは、変更のあったタスクのカードを1回だけ描画したもの (TaskCardRenderer) です。
+ * クライアントはそれを差し込むだけなので、接続数が増えても変更1件あたりのDB読み込みと描画は1回で済みます。
+ *
+ * クライアントごとに送信待ちの列を持ち、送信は仮想スレッドで行います。
+ * 1つのクライアントの送信が詰まっても、他のクライアントへの配信は止まりません。
+ * 送信待ちが MAX_QUEUED を超えたクライアントは切断します (EventSource が自動で再接続します)。
+ */
+@Component
+public class TaskEventPublisher {
+
+    // イベントの種類 (クライアントの EventSource はこの名前で受け取る)
+    public static final String CREATED = "task-created";
+    public static final String UPDATED = "task-updated";
+    public static final String COMPLETED = "task-completed";
+    public static final String REVERTED = "task-reverted";
+    public static final String DELETED = "task-deleted";
+    public static final String PROCESS_TOGGLED = "process-toggled";
+    public static final String IMAGE_REMOVED = "image-removed";
+
+    @Autowired private TaskCardRenderer taskCardRenderer;
+
+    // 1クライアントあたりの送信待ちの上限
+    static final int MAX_QUEUED = 64;
+
+    // 切断を検出するための空コメントを送る間隔 (プロキシのアイドル切断対策も兼ねる)
+    @Value("${taskmanager.events.heartbeat-seconds:30}")
+    private long heartbeatSeconds = 30;
+
+    // 接続中のクライアント
+    // 待機中の接続は Servlet の非同期処理で保持されるので、スレッドは消費しない
+    private final Map<SseEmitter, Subscriber> subscribers = new ConcurrentHashMap<>();
+
+    // 送信用 (クライアントごとに送信中の間だけ仮想スレッドを1本使う)
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    private ScheduledExecutorService heartbeat;
+
+    // クライアント1つ分の送信待ちの列
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final Queue<SseEmitter.SseEventBuilder> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger queued = new AtomicInteger();
+        final AtomicBoolean sending = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "task-event-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        heartbeat.scheduleWithFixedDelay(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    // 新しい購読を作成 (タイムアウトなし。切断はハートビートで検出する)
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(0L);
+        register(emitter);
+        return emitter;
+    }
+
+    void register(SseEmitter emitter) {
+        subscribers.put(emitter, new Subscriber(emitter));
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(e -> subscribers.remove(emitter));
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * 変更イベントを全クライアントに配信する
+     * リポジトリの save / delete がコミットされた後に呼び出すこと
+     */
+    public void publish(String type, Long taskId) {
+        if (taskId == null || subscribers.isEmpty()) return;
+        // 完了・削除はカードを消すだけなので描画しない
+        boolean removed = COMPLETED.equals(type) || DELETED.equals(type);
+        broadcast(type, removed ? taskCardRenderer.removed(taskId) : taskCardRenderer.render(taskId));
+    }
+
+    // 同じデータを全クライアントに送る
+    void broadcast(String type, String data) {
+        for (Subscriber s : subscribers.values()) {
+            enqueue(s, SseEmitter.event().name(type).data(data));
+        }
+    }
+
+    // 全クライアントに空コメントを送る (送れなかった接続はここで外れる)
+    void heartbeat() {
+        for (Subscriber s : subscribers.values()) {
+            enqueue(s, SseEmitter.event().comment("ping"));
+        }
+    }
+
+    private void enqueue(Subscriber s, SseEmitter.SseEventBuilder event) {
+        if (s.queued.incrementAndGet() > MAX_QUEUED) {
+            // 受け取りが追いつかないクライアントは切断する
+            drop(s);
+            return;
+        }
+        s.queue.add(event);
+        if (s.sending.compareAndSet(false, true)) {
+            senders.execute(() -> drain(s));
+        }
+    }
+
+    // 送信待ちの列を空になるまで送る (同じクライアントへの送信は常に1本のスレッドだけ)
+    private void drain(Subscriber s) {
+        while (true) {
+            SseEmitter.SseEventBuilder event;
+            while ((event = s.queue.poll()) != null) {
+                s.queued.decrementAndGet();
+                try {
+                    s.emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    // 切断済みのクライアントは一覧から外す
+                    drop(s);
+                    return;
+                }
+            }
+            s.sending.set(false);
+            // 直前に追加されたイベントがあれば続けて送る
+            if (s.queue.isEmpty() || !s.sending.compareAndSet(false, true)) return;
+        }
+    }
+
+    private void drop(Subscriber s) {
+        if (subscribers.remove(s.emitter) == null) return;
+        s.queue.clear();
+        // complete() は送信中のスレッドと同じロックを取るので、呼び出し元を待たせないよう別スレッドで
+        senders.execute(() -> {
+            try {
+                s.emitter.complete();
+            } catch (RuntimeException ignored) {
+                // 既に閉じている
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (heartbeat != null) heartbeat.shutdownNow();
+        subscribers.keySet().forEach(SseEmitter::complete);
+        subscribers.clear();
+        senders.shutdownNow();
+    }
+}
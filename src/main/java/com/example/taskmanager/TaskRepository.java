@@ -2,7 +2,9 @@ package com.example.taskmanager;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.EntityGraph;//JOINでクエリをかける時に使用するエンティティ
 
 /**
@@ -38,4 +40,25 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
     @EntityGraph(attributePaths = {"genre", "processes", "relatedUrls", "images"})
     // ★ (アーカイブ画面用に、trueのものも定義しておくと便利)
     List<Task> findByIsCompletedTrue();
+
+    // 検索インデックスの作成用 (未完了・完了済みをまとめて、工程・関連URLも一緒に取得)
+    @EntityGraph(attributePaths = {"processes", "relatedUrls"})
+    List<Task> findAllBy();
+
+    // ガントチャートAPI用 (期間インデックスで絞り込んだIDのタスクを工程と一緒に取得)
+    @EntityGraph(attributePaths = {"processes"})
+    List<Task> findByIdIn(Collection<Long> ids);
+
+    long countByIsCompletedTrue();
+
+    // 検索インデックスのスナップショットがDBと合っているかの確認用
+    @Query("select max(t.id) from Task t")
+    Long findMaxId();
+
+    /**
+     * 完了実績の一括集計用
+     * エンティティ全体ではなく [ジャンルID, 開始日, 終了日, 完了日時] だけを取得する
+     */
+    @Query("select g.id, t.startDate, t.endDate, t.completedAt from Task t left join t.genre g where t.isCompleted = true")
+    List<Object[]> findCompletionFacts();
 }
\ No newline at end of file
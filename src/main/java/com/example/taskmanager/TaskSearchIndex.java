@@ -0,0 +1,288 @@
+package com.example.taskmanager;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import java.io.*;
+import java.nio.file.*;
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * タスクの全文検索インデックス (プロセス内・転置インデックス)
+ * 対象: タイトル、概要、工程名、関連URL名
+ *
+ * 日本語は単語の区切りがないため、漢字・ひらがな・カタカナの連続部分は
+ * 2文字ずつ (バイグラム) に分割して登録します。英数字は単語単位です。
+ */
+@Component
+public class TaskSearchIndex {
+
+    @Autowired private TaskRepository taskRepository;
+
+    // 保存先 (正常終了時だけ書き出し、次回起動時に読み込む)
+    // 本番 (Docker) では -Dtaskmanager.search.index-file=/data/search-index.bin を指定する
+    @Value("${taskmanager.search.index-file:search-index.bin}")
+    private String indexFile;
+
+    // スナップショットのファイルの先頭に書く識別子 ("TSI" + 形式の番号)
+    private static final int SNAPSHOT_MAGIC = 0x54534901;
+
+    // 語 -> その語を含むタスクID
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    // タスクID -> そのタスクに含まれる語 (更新・削除時に古い語を外すため)
+    private final Map<Long, Set<String>> documents = new HashMap<>();
+
+    // 作り直しの最中に行われた更新 (タスクID -> 語。削除は null)
+    // 作り直しの結果に上書きして、その間の更新が消えないようにする。作り直し中でなければ null
+    private Map<Long, Set<String>> changedDuringRebuild;
+
+    // --- 起動・終了 ---
+
+    /**
+     * 保存してあるインデックスがあれば、それを読み込んで使う (全タスクの読み込みを省く)
+     * タスク数・最大IDがDBと違う場合や、ファイルが壊れている場合はDBから作り直す
+     * ※ アプリ外 (H2コンソールなど) でタスクの内容を直接書き換えた場合は検出できないので、
+     *   保存先のファイルを削除してから起動すること
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!loadSnapshot()) rebuild();
+    }
+
+    // DBの全タスク (未完了・完了済み) から作り直す
+    public void rebuild() {
+        synchronized (this) {
+            changedDuringRebuild = new HashMap<>();
+        }
+        Map<Long, Set<String>> rebuilt = new HashMap<>();
+        try {
+            for (Task task : taskRepository.findAllBy()) {
+                rebuilt.put(task.getId(), tokenizeDocument(task));
+            }
+        } finally {
+            synchronized (this) {
+                changedDuringRebuild.forEach((id, terms) -> {
+                    if (terms == null) {
+                        rebuilt.remove(id);
+                    } else {
+                        rebuilt.put(id, terms);
+                    }
+                });
+                changedDuringRebuild = null;
+            }
+        }
+        synchronized (this) {
+            postings.clear();
+            documents.clear();
+            rebuilt.forEach(this::put);
+        }
+    }
+
+    /**
+     * スナップショットの形式 (DataOutputStream):
+     * [識別子, タスク数, 最大タスクID (なければ -1), タスクごとに [タスクID, 語の数, 語 (UTF)...]]
+     * 読み込み時にクラスを復元しない (ボリューム上のファイルを信用しない) ように、値だけを書く
+     */
+    @PreDestroy
+    public synchronized void saveSnapshot() {
+        Path path = Paths.get(indexFile);
+        try {
+            if (path.getParent() != null) Files.createDirectories(path.getParent());
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(path)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(documents.size());
+                out.writeLong(documents.keySet().stream().max(Long::compare).orElse(-1L));
+                for (Map.Entry<Long, Set<String>> doc : documents.entrySet()) {
+                    out.writeLong(doc.getKey());
+                    out.writeInt(doc.getValue().size());
+                    for (String term : doc.getValue()) out.writeUTF(term);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("検索インデックスを保存できませんでした: " + e.getMessage());
+        }
+    }
+
+    private boolean loadSnapshot() {
+        Path path = Paths.get(indexFile);
+        if (!Files.exists(path)) return false;
+        try {
+            long maxId;
+            Map<Long, Set<String>> snapshot = new HashMap<>();
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(path)))) {
+                if (in.readInt() != SNAPSHOT_MAGIC) return false;
+                int count = in.readInt();
+                maxId = in.readLong();
+                if (count < 0) return false;
+                for (int i = 0; i < count; i++) {
+                    long id = in.readLong();
+                    int termCount = in.readInt();
+                    if (termCount < 0) return false;
+                    Set<String> terms = new HashSet<>();
+                    for (int j = 0; j < termCount; j++) terms.add(in.readUTF());
+                    snapshot.put(id, terms);
+                }
+            } finally {
+                // 読み込んだら消しておく (異常終了した場合は、次回起動時に作り直しになる)
+                Files.deleteIfExists(path);
+            }
+            // タスク数・最大IDがDBと違えば使わない
+            Long dbMaxId = taskRepository.findMaxId();
+            if (snapshot.size() != taskRepository.count() || maxId != (dbMaxId != null ? dbMaxId : -1L)) return false;
+            synchronized (this) {
+                postings.clear();
+                documents.clear();
+                snapshot.forEach(this::put);
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // --- 更新 (TaskController の保存・削除の後に呼ぶ) ---
+
+    public void index(Task task) {
+        Set<String> terms = tokenizeDocument(task);
+        synchronized (this) {
+            removeTerms(task.getId());
+            put(task.getId(), terms);
+            if (changedDuringRebuild != null) changedDuringRebuild.put(task.getId(), terms);
+        }
+    }
+
+    public synchronized void remove(Long taskId) {
+        removeTerms(taskId);
+        if (changedDuringRebuild != null) changedDuringRebuild.put(taskId, null);
+    }
+
+    private void removeTerms(Long taskId) {
+        Set<String> terms = documents.remove(taskId);
+        if (terms == null) return;
+        for (String term : terms) {
+            Set<Long> ids = postings.get(term);
+            if (ids == null) continue;
+            ids.remove(taskId);
+            if (ids.isEmpty()) postings.remove(term);
+        }
+    }
+
+    private void put(Long taskId, Set<String> terms) {
+        documents.put(taskId, terms);
+        for (String term : terms) {
+            postings.computeIfAbsent(term, k -> new HashSet<>()).add(taskId);
+        }
+    }
+
+    // --- 検索 ---
+
+    /**
+     * クエリに含まれるすべての語を含むタスクのIDを返す (AND検索)
+     */
+    public List<Long> search(String query) {
+        Set<String> terms = tokenize(query, false);
+        if (terms.isEmpty()) return List.of();
+
+        Set<Long> result = null;
+        synchronized (this) {
+            // 件数の少ない語から絞り込む
+            List<Set<Long>> lists = new ArrayList<>();
+            for (String term : terms) {
+                Set<Long> ids = postings.get(term);
+                if (ids == null) return List.of();
+                lists.add(ids);
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+            for (Set<Long> ids : lists) {
+                if (result == null) {
+                    result = new HashSet<>(ids);
+                } else {
+                    result.retainAll(ids);
+                }
+                if (result.isEmpty()) break;
+            }
+        }
+        List<Long> ids = new ArrayList<>(result);
+        ids.sort(Comparator.reverseOrder());
+        return ids;
+    }
+
+    // --- 分かち書き ---
+
+    private static Set<String> tokenizeDocument(Task task) {
+        StringBuilder text = new StringBuilder();
+        append(text, task.getTitle());
+        append(text, task.getDescription());
+        task.getProcesses().forEach(p -> append(text, p.getName()));
+        task.getRelatedUrls().forEach(u -> append(text, u.getName()));
+        return tokenize(text.toString(), true);
+    }
+
+    private static void append(StringBuilder text, String value) {
+        if (value != null) text.append(value).append('\n');
+    }
+
+    /**
+     * 文字列を検索用の語に分割する
+     * ・全角/半角、大文字/小文字の違いは正規化 (NFKC + 小文字化) で吸収
+     * ・英数字は連続部分を1語とする
+     * ・日本語 (CJK) は連続部分をバイグラムに分割
+     *   文書側は1文字の語も登録し、1文字だけのクエリでも検索できるようにする
+     */
+    static Set<String> tokenize(String text, boolean forDocument) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) return terms;
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+
+        StringBuilder word = new StringBuilder();
+        StringBuilder cjk = new StringBuilder();
+        for (int i = 0; i < normalized.length(); ) {
+            int cp = normalized.codePointAt(i);
+            i += Character.charCount(cp);
+            if (isCjk(cp)) {
+                flushWord(word, terms);
+                cjk.appendCodePoint(cp);
+            } else if (Character.isLetterOrDigit(cp)) {
+                flushCjk(cjk, terms, forDocument);
+                word.appendCodePoint(cp);
+            } else {
+                flushWord(word, terms);
+                flushCjk(cjk, terms, forDocument);
+            }
+        }
+        flushWord(word, terms);
+        flushCjk(cjk, terms, forDocument);
+        return terms;
+    }
+
+    private static void flushWord(StringBuilder word, Set<String> terms) {
+        if (word.length() > 0) terms.add(word.toString());
+        word.setLength(0);
+    }
+
+    private static void flushCjk(StringBuilder run, Set<String> terms, boolean forDocument) {
+        int[] cps = run.codePoints().toArray();
+        run.setLength(0);
+        if (cps.length == 0) return;
+        if (cps.length == 1 || forDocument) {
+            for (int cp : cps) terms.add(new String(Character.toChars(cp)));
+        }
+        for (int i = 0; i + 1 < cps.length; i++) {
+            terms.add(new String(cps, i, 2));
+        }
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || cp == 'ー'; // 長音記号 (COMMON 扱いのため個別に判定)
+    }
+}
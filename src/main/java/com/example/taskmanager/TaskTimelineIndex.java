@@ -0,0 +1,123 @@
+package com.example.taskmanager;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * ガントチャート用の期間インデックス (未完了タスクのみ)
+ *
+ * タスクごとに「タスク自身と全工程を含む期間」を1つ登録し、開始日順に並べて持ちます。
+ * 登録されている期間の最大の長さを覚えておくことで、
+ * 表示期間 [from, to] と重なるタスクは「開始日が from - 最大日数 〜 to の範囲」だけを見れば見つかります。
+ * 最大の長さは期間の長さごとの件数から求めるので、長いタスクが完了・削除されればすぐに縮みます。
+ */
+@Component
+public class TaskTimelineIndex {
+
+    @Autowired private TaskRepository taskRepository;
+
+    // 開始日 -> その日に始まるタスクID
+    private final TreeMap<LocalDate, Set<Long>> byStart = new TreeMap<>();
+    // タスクID -> 期間 [開始日, 終了日]
+    private final Map<Long, LocalDate[]> spans = new HashMap<>();
+    // 期間の日数 -> その日数のタスク数 (最後のキーが最大日数)
+    private final TreeMap<Long, Integer> spanLengths = new TreeMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Task> tasks = taskRepository.findByIsCompletedFalse();
+        synchronized (this) {
+            byStart.clear();
+            spans.clear();
+            spanLengths.clear();
+            tasks.forEach(this::index);
+        }
+    }
+
+    // --- 更新 (TaskController の保存・削除の後に呼ぶ) ---
+
+    // 完了済みのタスクや日付のないタスクはチャートに出ないので登録しない
+    public synchronized void index(Task task) {
+        remove(task.getId());
+        if (task.isCompleted()) return;
+        LocalDate[] span = envelope(task);
+        if (span == null) return;
+
+        spans.put(task.getId(), span);
+        byStart.computeIfAbsent(span[0], k -> new HashSet<>()).add(task.getId());
+        spanLengths.merge(length(span), 1, Integer::sum);
+    }
+
+    public synchronized void remove(Long taskId) {
+        LocalDate[] span = spans.remove(taskId);
+        if (span == null) return;
+        Set<Long> ids = byStart.get(span[0]);
+        ids.remove(taskId);
+        if (ids.isEmpty()) byStart.remove(span[0]);
+        spanLengths.computeIfPresent(length(span), (k, n) -> n > 1 ? n - 1 : null);
+    }
+
+    // 登録されている期間の最大日数
+    synchronized long maxSpanDays() {
+        return spanLengths.isEmpty() ? 0 : spanLengths.lastKey();
+    }
+
+    private static long length(LocalDate[] span) {
+        return ChronoUnit.DAYS.between(span[0], span[1]);
+    }
+
+    // --- 検索 ---
+
+    /**
+     * 期間 [from, to] と重なるタスクのIDを返す
+     */
+    public synchronized List<Long> findOverlapping(LocalDate from, LocalDate to) {
+        List<Long> result = new ArrayList<>();
+        if (from.isAfter(to)) return result;
+        LocalDate lower = from.minusDays(maxSpanDays());
+        for (Set<Long> ids : byStart.subMap(lower, true, to, true).values()) {
+            for (Long id : ids) {
+                if (!spans.get(id)[1].isBefore(from)) result.add(id);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * チャート上の親タスクの期間 (main.js の計算と同じ)
+     * 開始日・終了日がなければ、日付の入っている工程から補完する
+     */
+    static LocalDate[] taskSpan(Task task) {
+        LocalDate start = task.getStartDate();
+        LocalDate end = task.getEndDate();
+        for (TaskProcess p : task.getProcesses()) {
+            if (p.getStartDate() == null || p.getEndDate() == null) continue;
+            if (task.getStartDate() == null && (start == null || p.getStartDate().isBefore(start))) start = p.getStartDate();
+            if (task.getEndDate() == null && (end == null || p.getEndDate().isAfter(end))) end = p.getEndDate();
+        }
+        if (start == null || end == null) return null;
+        // 逆転防止
+        if (end.isBefore(start)) end = start;
+        return new LocalDate[] { start, end };
+    }
+
+    // 親タスクと全工程をまとめて含む期間
+    private static LocalDate[] envelope(Task task) {
+        LocalDate[] span = taskSpan(task);
+        LocalDate start = span != null ? span[0] : null;
+        LocalDate end = span != null ? span[1] : null;
+        for (TaskProcess p : task.getProcesses()) {
+            if (p.getStartDate() == null || p.getEndDate() == null) continue;
+            if (start == null || p.getStartDate().isBefore(start)) start = p.getStartDate();
+            if (end == null || p.getEndDate().isAfter(end)) end = p.getEndDate();
+        }
+        if (start == null || end == null) return null;
+        if (end.isBefore(start)) end = start;
+        return new LocalDate[] { start, end };
+    }
+}
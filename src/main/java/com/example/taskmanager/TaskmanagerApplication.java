@@ -1,12 +1,14 @@
 package com.example.taskmanager;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import java.util.List;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
 @SpringBootApplication
+@EnableScheduling // DBの保守 (StorageMaintenance) を定期実行するため
 public class TaskmanagerApplication {
 
     public static void main(String[] args) {
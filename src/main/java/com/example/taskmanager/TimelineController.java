@@ -0,0 +1,80 @@
+package com.example.taskmanager;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Controller
+public class TimelineController {
+
+    @Autowired private TaskTimelineIndex taskTimelineIndex;
+    @Autowired private TaskRepository taskRepository;
+
+    /**
+     * ガントチャート用のJSON
+     * 表示期間 [from, to] と重なる未完了タスクと、その期間に重なる工程だけを返す
+     * (例: /api/timeline?from=2025-11-01&to=2025-11-30)
+     */
+    @GetMapping("/api/timeline")
+    @ResponseBody
+    public List<Map<String, Object>> timeline(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        List<Long> ids = taskTimelineIndex.findOverlapping(from, to);
+        if (ids.isEmpty()) return List.of();
+
+        List<Task> tasks = new ArrayList<>(taskRepository.findByIdIn(ids));
+        tasks.sort(Comparator.comparing(Task::getSortDate));
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Task task : tasks) {
+            if (task.isCompleted()) continue;
+            result.add(timelineItem(task, from, to));
+        }
+        return result;
+    }
+
+    /**
+     * ガントチャートの1タスク分
+     * 工程は期間 [from, to] に重なるものだけ (from, to が null なら日付の入っている全工程)
+     * (SSE のイベントでも同じ形で送る)
+     */
+    static Map<String, Object> timelineItem(Task task, LocalDate from, LocalDate to) {
+        LocalDate[] span = TaskTimelineIndex.taskSpan(task);
+
+        List<Map<String, Object>> processes = new ArrayList<>();
+        for (TaskProcess p : task.getProcesses()) {
+            if (p.getStartDate() == null || p.getEndDate() == null) continue;
+            if (to != null && p.getStartDate().isAfter(to)) continue;
+            if (from != null && p.getEndDate().isBefore(from)) continue;
+            Map<String, Object> proc = new LinkedHashMap<>();
+            proc.put("id", "Process-" + p.getId());
+            proc.put("name", p.getName());
+            proc.put("start", p.getStartDate());
+            proc.put("end", p.getEndDate());
+            proc.put("progress", p.isCompleted() ? 100 : 0);
+            processes.add(proc);
+        }
+
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("id", "Task-" + task.getId());
+        item.put("name", task.getTitle());
+        item.put("start", span != null ? span[0] : null);
+        item.put("end", span != null ? span[1] : null);
+        item.put("progress", 0);
+        // 並び順 (タスク一覧と同じ Task.getSortDate。日付がなければ null で最後に並べる)
+        item.put("sortDate", LocalDate.MAX.equals(task.getSortDate()) ? null : task.getSortDate());
+        item.put("processes", processes);
+        return item;
+    }
+}
@@ -73,12 +73,211 @@ window.addEventListener("DOMContentLoaded", (event) => {
         }
     });
 
+    // --- ボード変更の受信 (SSE) ---
+    // イベントにはサーバーで描画済みのカードが入っているので、それを差し込むだけ (サーバーには取りに行かない)
+    // 接続が切れていた間の変更だけは、再接続した時に一覧ごと取り直す
+    if (document.getElementById("task-list-area") && window.EventSource && window.htmx) {
+        const events = new EventSource("/tasks/events");
+
+        // 配信されたカードのフォームにはCSRFトークンが入っていないので、ページにあるものを補う
+        const addCsrf = (card) => {
+            const csrf = document.querySelector('input[name="_csrf"]');
+            if (!csrf) return;
+            card.querySelectorAll('form[method="post"]').forEach(form => {
+                if (!form.querySelector('input[name="_csrf"]')) form.appendChild(csrf.cloneNode());
+            });
+        };
+
+        // 一覧の並び順 (サーバーの Task.getSortDate と同じ。日付のないタスクは最後、同じ日付はID順)
+        const sortKey = (card) => {
+            const date = card.dataset.sortDate || "";
+            return [date.startsWith("+") ? "9999-99-99" : date, Number(card.id.replace("task-", ""))];
+        };
+        const isBefore = (a, b) => a[0] < b[0] || (a[0] === b[0] && a[1] < b[1]);
+
+        // カードを差し込む (同じタスクのカードがあれば置き換え、並び順の位置に入れる)
+        const upsertCard = (html) => {
+            const area = document.getElementById("task-list-area");
+            const template = document.createElement("template");
+            template.innerHTML = html.trim();
+            const card = template.content.firstElementChild;
+            addCsrf(card);
+
+            const old = document.getElementById(card.id);
+            if (old) old.remove();
+            const empty = document.getElementById("task-list-empty");
+            if (empty) empty.remove();
+
+            const key = sortKey(card);
+            const next = Array.from(area.querySelectorAll(":scope > .task-ticket"))
+                .find(other => isBefore(key, sortKey(other)));
+            area.insertBefore(card, next || null);
+            htmx.process(card);
+        };
+
+        // カードを消す (最後の1枚なら「ありません」の表示に戻す)
+        const removeCard = (id) => {
+            const card = document.getElementById("task-" + id);
+            if (card) card.remove();
+            const area = document.getElementById("task-list-area");
+            if (!area.querySelector(".task-ticket") && !document.getElementById("task-list-empty")) {
+                const empty = document.createElement("p");
+                empty.id = "task-list-empty";
+                empty.textContent = "未完了のタスクはありません。";
+                area.appendChild(empty);
+            }
+        };
+
+        // 一覧とガントチャートをまとめて取り直す (再接続した時・サーバーで描画できなかった時)
+        const reloadAll = () => {
+            htmx.ajax("GET", "/tasks/list", { target: "#task-list-area", swap: "outerHTML" });
+            if (window.refreshGantt) window.refreshGantt();
+        };
+
+        const applyEvent = (e) => {
+            const data = JSON.parse(e.data);
+            if (data.stale) { reloadAll(); return; }
+            if (data.html) {
+                upsertCard(data.html);
+            } else {
+                removeCard(data.id);
+            }
+            if (window.updateGanttTask) window.updateGanttTask("Task-" + data.id, data.timeline || null);
+        };
+        ["task-created", "task-reverted", "task-updated", "process-toggled", "image-removed", "task-completed", "task-deleted"]
+            .forEach(name => events.addEventListener(name, applyEvent));
+
+        // 2回目以降の open は再接続 (切れていた間のイベントは届かないので取り直す)
+        let connected = false;
+        events.addEventListener("open", () => {
+            if (connected) reloadAll();
+            connected = true;
+        });
+    }
+
     // --- ガントチャート処理 (Google Charts) ---
+    // 表示期間のデータだけを /api/timeline から取得する
+    // 取得済みの期間は覚えておき、前後に移動した時は足りない部分だけを追加で取得する
+    const GANTT_DAYS = 42;   // 表示する日数 (6週間)
+    const GANTT_STEP = 14;   // 前へ/次へ で移動する日数
+
+    const toIso = (d) => d.toISOString().slice(0, 10);
+    const addDays = (iso, n) => {
+        const d = new Date(iso + "T00:00:00Z");
+        d.setUTCDate(d.getUTCDate() + n);
+        return toIso(d);
+    };
+    const todayIso = () => {
+        const now = new Date();
+        return toIso(new Date(Date.UTC(now.getFullYear(), now.getMonth(), now.getDate())));
+    };
+    const defaultFrom = () => addDays(todayIso(), -7);
+
+    let viewFrom = defaultFrom();
+    let loadedFrom = null;
+    let loadedTo = null;
+    let ganttCache = new Map(); // タスクID -> タスク (工程は取得した期間の分が溜まっていく)
+    let ganttGeneration = 0;    // キャッシュを作り直すたびに増やす (作り直す前に出したリクエストの結果を捨てるため)
+
+    // 期間 [from, to] を取得してキャッシュに入れる
+    // 成功したら true、失敗した場合や取得中にキャッシュが作り直された場合は false (結果は使わない)
+    function fetchTimeline(from, to) {
+        const generation = ganttGeneration;
+        return fetch("/api/timeline?from=" + from + "&to=" + to)
+            .then(res => {
+                if (!res.ok) throw new Error("timeline: " + res.status);
+                return res.json();
+            })
+            .then(tasks => {
+                if (generation !== ganttGeneration) return false;
+                tasks.forEach(t => {
+                    const cached = ganttCache.get(t.id);
+                    if (!cached) { ganttCache.set(t.id, t); return; }
+                    // 別の期間で取得済みなら、工程だけを追加する
+                    const known = new Set(cached.processes.map(p => p.id));
+                    t.processes.forEach(p => { if (!known.has(p.id)) cached.processes.push(p); });
+                });
+                return true;
+            })
+            .catch(() => false);
+    }
+
+    // 表示期間のうち、まだ取得していない部分だけを取得する
+    // 取得済みの期間は、取得に成功してから広げる (失敗した期間は次に表示する時にもう一度取得する)
+    function loadWindow(from, to) {
+        if (loadedFrom === null || to < addDays(loadedFrom, -1) || from > addDays(loadedTo, 1)) {
+            // 取得済みの期間と離れている場合は取り直す
+            ganttGeneration++;
+            ganttCache = new Map();
+            loadedFrom = null;
+            loadedTo = null;
+            const generation = ganttGeneration;
+            return fetchTimeline(from, to).then(ok => {
+                if (!ok || generation !== ganttGeneration) return;
+                loadedFrom = from;
+                loadedTo = to;
+            });
+        }
+        const generation = ganttGeneration;
+        const requests = [];
+        if (from < loadedFrom) {
+            requests.push(fetchTimeline(from, addDays(loadedFrom, -1)).then(ok => {
+                if (ok && generation === ganttGeneration && from < loadedFrom) loadedFrom = from;
+            }));
+        }
+        if (to > loadedTo) {
+            requests.push(fetchTimeline(addDays(loadedTo, 1), to).then(ok => {
+                if (ok && generation === ganttGeneration && to > loadedTo) loadedTo = to;
+            }));
+        }
+        return Promise.all(requests);
+    }
+
+    function showWindow() {
+        const viewTo = addDays(viewFrom, GANTT_DAYS - 1);
+        const range = document.getElementById("gantt-range");
+        if (range) range.textContent = viewFrom + " ～ " + viewTo;
+        // 取得の間に表示期間が変わっていることがあるので、描く時点の表示期間で描く
+        loadWindow(viewFrom, viewTo).then(() => drawChart(viewFrom, addDays(viewFrom, GANTT_DAYS - 1)));
+    }
+
+    // 他の画面での変更を受け取った時など、取得済みのデータを捨てて描き直す
+    window.refreshGantt = function() {
+        loadedFrom = null;
+        loadedTo = null;
+        showWindow();
+    };
+
+    const bindGanttButton = (id, handler) => {
+        const btn = document.getElementById(id);
+        if (btn) btn.addEventListener("click", () => { handler(); showWindow(); });
+    };
+    bindGanttButton("gantt-prev", () => { viewFrom = addDays(viewFrom, -GANTT_STEP); });
+    bindGanttButton("gantt-next", () => { viewFrom = addDays(viewFrom, GANTT_STEP); });
+    bindGanttButton("gantt-today", () => { viewFrom = defaultFrom(); });
+
+    // SSE で届いたタスク1件分をキャッシュに反映して描き直す (item が null ならチャートから消す)
+    // まとめて届いた変更は1回の描き直しにまとめる
+    let chartLoaded = false;
+    let redrawTimer = null;
+    window.updateGanttTask = function(id, item) {
+        if (item) {
+            ganttCache.set(id, item);
+        } else {
+            ganttCache.delete(id);
+        }
+        if (!chartLoaded) return;
+        clearTimeout(redrawTimer);
+        redrawTimer = setTimeout(() => drawChart(viewFrom, addDays(viewFrom, GANTT_DAYS - 1)), 300);
+    };
+
     google.charts.load('current', {'packages':['gantt'], 'language': 'ja'});
-    google.charts.setOnLoadCallback(drawChart);
+    google.charts.setOnLoadCallback(() => {
+        chartLoaded = true;
+        showWindow();
+    });
 
-    function drawChart() {
-        const tasksData = window.taskDataForGantt || [];
+    function drawChart(from, to) {
         const data = new google.visualization.DataTable();
         
         data.addColumn('string', 'Task ID');
@@ -91,89 +290,62 @@ window.addEventListener("DOMContentLoaded", (event) => {
         data.addColumn('string', 'Dependencies');
 
         const rows = [];
-        
-        tasksData.forEach(t => {
-            // 親タスクの日付計算
-            let pStartStr = t.start;
-            let pEndStr = t.end; // ★まずはタスク自身の終了日を採用
+        // 表示期間からはみ出す部分は切り詰める
+        const clip = (start, end) => [start < from ? from : start, end > to ? to : end];
+        const overlaps = (start, end) => start <= to && end >= from;
 
-            // 子工程がある場合
-            if (t.processes && t.processes.length > 0) {
-                const validChildren = t.processes.filter(p => p.start && p.end);
-                
-                if (validChildren.length > 0) {
-                    // 開始日がなければ子から補完
-                    if (!pStartStr) {
-                        pStartStr = validChildren.reduce((min, p) => p.start < min ? p.start : min, validChildren[0].start);
-                    }
-                    // ★終了日がなければ子から補完 (あればそのまま)
-                    if (!pEndStr) {
-                        pEndStr = validChildren.reduce((max, p) => p.end > max ? p.end : max, validChildren[0].end);
-                    }
-                }
-            }
+        // 並び順はタスク一覧と同じ (サーバーの Task.getSortDate 順。日付のないタスクは最後、同じ日付はID順)
+        const taskNumber = (t) => Number(t.id.replace("Task-", ""));
+        const tasksData = Array.from(ganttCache.values())
+            .sort((a, b) => (a.sortDate || "9999-99-99").localeCompare(b.sortDate || "9999-99-99")
+                || taskNumber(a) - taskNumber(b));
 
-            // もし子工程がなく、親タスクだけの日付が入っている場合のバックアップ
-            // (t.end が有効な日付なら pEndStr に採用)
-            if (!pEndStr && t.end && t.end.indexOf("9999") === -1) {
-                pEndStr = t.end;
-            }
-
-            // 2. 親タスクの描画
-            if (pStartStr && pEndStr) {
-                const pStart = new Date(pStartStr);
-                const pEnd = new Date(pEndStr);
-                
-                // 逆転防止
-                if (pEnd < pStart) pEnd.setDate(pStart.getDate());
+        tasksData.forEach(t => {
+            const children = t.processes.filter(p => overlaps(p.start, p.end));
+            const parentVisible = t.start && t.end && overlaps(t.start, t.end);
+            if (!parentVisible && children.length === 0) return;
 
+            // 1. 親タスクの描画 (開始日・終了日はサーバー側で工程から補完済み)
+            if (parentVisible) {
+                const [pStartStr, pEndStr] = clip(t.start, t.end);
                 rows.push([
                     t.id, 
                     t.name, 
                     'Task', 
-                    pStart, 
-                    pEnd, 
+                    new Date(pStartStr), 
+                    new Date(pEndStr), 
                     null, 
                     t.progress, 
                     null
                 ]);
             }
 
-            // 3. 子工程の描画
-            if (t.processes && t.processes.length > 0) {
-                t.processes.forEach(p => {
-                    if (!p.start || !p.end) return; 
-                    const subStart = new Date(p.start);
-                    const subEnd = new Date(p.end);
-                    if (subEnd < subStart) subEnd.setDate(subStart.getDate());
-
-                    rows.push([
-                        p.id, 
-                        "　↳ " + p.name, 
-                        'Process', 
-                        subStart, 
-                        subEnd, 
-                        null, 
-                        p.progress, 
-                        null 
-                    ]);
-                });
-            }
+            // 2. 子工程の描画
+            children.forEach(p => {
+                const [subStartStr, subEndStr] = clip(p.start, p.end);
+                const subStart = new Date(subStartStr);
+                const subEnd = new Date(subEndStr);
+                if (subEnd < subStart) subEnd.setDate(subStart.getDate());
+
+                rows.push([
+                    p.id, 
+                    "　↳ " + p.name, 
+                    'Process', 
+                    subStart, 
+                    subEnd, 
+                    null, 
+                    p.progress, 
+                    null 
+                ]);
+            });
         });
 
         if (rows.length > 0) {
             data.addRows(rows);
 
-            // --- 全日付の目盛り(ticks)を作成 ---
-            let minDate = new Date(8640000000000000);
-            let maxDate = new Date(-8640000000000000);
-
-            rows.forEach(r => {
-                if (r[3] < minDate) minDate = r[3];
-                if (r[4] > maxDate) maxDate = r[4];
-            });
-            minDate.setDate(minDate.getDate() - 1);
-            maxDate.setDate(maxDate.getDate() + 1);
+            // --- 表示期間の全日付の目盛り(ticks)を作成 ---
+            const minDate = new Date(from);
+            const maxDate = new Date(to);
 
             let ticks = [];
             let currDate = new Date(minDate);
@@ -230,7 +402,7 @@ window.addEventListener("DOMContentLoaded", (event) => {
 
         } else {
             const chartDiv = document.getElementById('gantt-chart');
-            if(chartDiv) chartDiv.innerHTML = "<div class='alert alert-light'>表示できるタスクがありません</div>";
+            if(chartDiv) chartDiv.innerHTML = "<div class='alert alert-light'>この期間に表示できるタスクがありません</div>";
         }
     }
 });
\ No newline at end of file
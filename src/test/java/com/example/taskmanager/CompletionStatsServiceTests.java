@@ -0,0 +1,155 @@
+package com.example.taskmanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// 完了・差し戻し・削除の差分で更新した集計が、完了済みタスクから作り直した集計 (backfill) と一致すること
+// (サービスのトランザクションをそのまま使うため、テストのトランザクションは使わない)
+@DataJpaTest
+@Import(CompletionStatsService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CompletionStatsServiceTests {
+
+	@Autowired private CompletionStatsService service;
+	@Autowired private TaskRepository taskRepository;
+	@Autowired private GenreRepository genreRepository;
+	@Autowired private CompletionRollupRepository rollupRepository;
+
+	private final LocalDate today = LocalDate.now();
+	private Genre design;
+	private Genre coding;
+
+	@BeforeEach
+	void setUp() {
+		rollupRepository.deleteAll();
+		taskRepository.deleteAll();
+		design = genreRepository.save(new Genre("デザイン"));
+		coding = genreRepository.save(new Genre("コーディング"));
+	}
+
+	@Test
+	void weekStartsOnMonday() {
+		// 2025-11-10 は月曜日
+		assertEquals(LocalDate.of(2025, 11, 10), CompletionStatsService.weekOf(LocalDateTime.of(2025, 11, 10, 0, 0)));
+		assertEquals(LocalDate.of(2025, 11, 10), CompletionStatsService.weekOf(LocalDateTime.of(2025, 11, 16, 23, 59)));
+		assertEquals(LocalDate.of(2025, 11, 17), CompletionStatsService.weekOf(LocalDateTime.of(2025, 11, 17, 0, 0)));
+	}
+
+	@Test
+	void incrementalRollupsMatchBackfill() {
+		Task onTime = task(design, today.minusDays(10), today.plusDays(5));
+		Task overdue = task(design, today.minusDays(3), today.minusDays(1));
+		Task noDates = task(coding, null, null);
+		Task noGenre = task(null, today.minusDays(7), today);
+		Task revertedOnly = task(coding, today.minusDays(2), today.plusDays(1));
+
+		service.complete(onTime);
+		service.complete(overdue);
+		service.complete(noDates);
+		service.complete(noGenre);
+		service.complete(revertedOnly);
+
+		service.revert(overdue);
+		service.complete(overdue);
+		service.revert(revertedOnly);
+		service.delete(onTime);
+		// 未完了のタスクを削除しても集計は変わらない
+		service.delete(task(design, today.minusDays(1), today));
+
+		Map<String, List<Long>> incremental = rows();
+		String week = "/" + CompletionStatsService.weekOf(LocalDateTime.now());
+		// [完了数, リードタイム合計, リードタイム件数, 納期あり件数, 納期超過件数]
+		assertEquals(List.of(1L, 3L, 1L, 1L, 1L), incremental.get(design.getId() + week));
+		assertEquals(List.of(1L, 0L, 0L, 0L, 0L), incremental.get(coding.getId() + week));
+		assertEquals(List.of(1L, 7L, 1L, 1L, 0L), incremental.get(CompletionRollup.NO_GENRE + week));
+		assertEquals(3, incremental.size());
+
+		assertEquals(3, service.backfill());
+		assertEquals(incremental, rows());
+	}
+
+	// 開始日より前に完了したタスクのリードタイムは 0日 (差分でも作り直しでも同じ)
+	@Test
+	void leadTimeIsNeverNegative() {
+		Task early = task(design, today.plusDays(4), null);
+		Task normal = task(design, today.minusDays(2), null);
+		service.complete(early);
+		service.complete(normal);
+
+		String key = design.getId() + "/" + CompletionStatsService.weekOf(LocalDateTime.now());
+		assertEquals(List.of(2L, 2L, 2L, 0L, 0L), rows().get(key));
+		service.backfill();
+		assertEquals(List.of(2L, 2L, 2L, 0L, 0L), rows().get(key));
+	}
+
+	// 同じジャンル・週の最初の完了が同時に来ても、行は1つだけ作られ、全件が加算される
+	@Test
+	void concurrentFirstCompletionsShareOneRow() throws Exception {
+		int count = 8;
+		List<Task> tasks = new ArrayList<>();
+		for (int i = 0; i < count; i++) tasks.add(task(design, today.minusDays(1), today));
+
+		ExecutorService pool = Executors.newFixedThreadPool(count);
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (Task t : tasks) results.add(pool.submit(() -> service.complete(t)));
+			for (Future<?> result : results) result.get();
+		} finally {
+			pool.shutdown();
+		}
+
+		assertEquals(1, rollupRepository.findAll().size());
+		String key = design.getId() + "/" + CompletionStatsService.weekOf(LocalDateTime.now());
+		assertEquals(List.of((long) count, (long) count, (long) count, (long) count, 0L), rows().get(key));
+	}
+
+	// 行がない週の差し戻しでは、負の値の行を作らない
+	@Test
+	void revertWithoutRowDoesNotCreateOne() {
+		Task task = task(design, today.minusDays(1), today);
+		service.complete(task);
+		rollupRepository.deleteAll();
+
+		service.revert(task);
+
+		assertTrue(rollupRepository.findAll().isEmpty());
+		assertFalse(taskRepository.findById(task.getId()).orElseThrow().isCompleted());
+	}
+
+	private Task task(Genre genre, LocalDate start, LocalDate end) {
+		Task task = new Task("タスク");
+		task.setGenre(genre);
+		task.setStartDate(start);
+		task.setEndDate(end);
+		return taskRepository.save(task);
+	}
+
+	// 完了数が0でない行 (ジャンルID/週 -> 値)
+	private Map<String, List<Long>> rows() {
+		Map<String, List<Long>> rows = new TreeMap<>();
+		for (CompletionRollup r : rollupRepository.findAll()) {
+			if (r.getCompletedCount() == 0) continue;
+			rows.put(r.getGenreId() + "/" + r.getWeekStart(), List.of(r.getCompletedCount(),
+					r.getLeadTimeDaysTotal(), r.getLeadTimeCount(), r.getDueCount(), r.getOverdueCount()));
+		}
+		return rows;
+	}
+}
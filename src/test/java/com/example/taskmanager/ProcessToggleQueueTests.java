@@ -0,0 +1,292 @@
+package com.example.taskmanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+class ProcessToggleQueueTests {
+
+	// コミット済みのDBの値 (工程ID -> 完了)
+	private final Map<Long, Boolean> db = new ConcurrentHashMap<>();
+	private final TaskProcessRepository repository = mock(TaskProcessRepository.class);
+	private final TestTransactionManager transactionManager = new TestTransactionManager();
+	private final ProcessToggleQueue queue = new ProcessToggleQueue();
+
+	@BeforeEach
+	void setUp() {
+		db.put(1L, false);
+		db.put(2L, false);
+
+		// トランザクション中は DB の値のコピーを返し、コミット時に書き戻す
+		when(repository.findAllById(anyIterable())).thenAnswer(invocation -> {
+			Iterable<Long> ids = invocation.getArgument(0);
+			List<TaskProcess> found = new ArrayList<>();
+			for (Long id : ids) {
+				if (!db.containsKey(id)) continue;
+				TaskProcess p = process(id, db.get(id));
+				transactionManager.working.add(p);
+				found.add(p);
+			}
+			return found;
+		});
+		when(repository.findById(anyLong())).thenAnswer(invocation -> {
+			Long id = invocation.getArgument(0);
+			if (!db.containsKey(id)) return Optional.empty();
+			TaskProcess p = process(id, db.get(id));
+			transactionManager.working.add(p);
+			return Optional.of(p);
+		});
+
+		EntityManager entityManager = mock(EntityManager.class);
+		when(entityManager.unwrap(Session.class)).thenReturn(mock(Session.class));
+
+		ReflectionTestUtils.setField(queue, "taskProcessRepository", repository);
+		ReflectionTestUtils.setField(queue, "taskEventPublisher", new TaskEventPublisher());
+		ReflectionTestUtils.setField(queue, "transactionManager", transactionManager);
+		ReflectionTestUtils.setField(queue, "entityManager", entityManager);
+		ReflectionTestUtils.setField(queue, "enabled", true);
+	}
+
+	// 同じ工程を2回クリックすると打ち消し合い、DBには何も書かない
+	@Test
+	void repeatedFlipsCancelOut() {
+		queue.toggle(1L);
+		queue.toggle(1L);
+		queue.flush();
+
+		verify(repository, never()).findAllById(anyIterable());
+		assertFalse(db.get(1L));
+		assertFalse(read().get(1L));
+	}
+
+	// 奇数回のクリックは1回の反転として保存される
+	@Test
+	void oddFlipsCoalesceIntoOneWrite() {
+		queue.toggle(1L);
+		queue.toggle(1L);
+		queue.toggle(1L);
+		queue.toggle(2L);
+		queue.flush();
+
+		assertTrue(db.get(1L));
+		assertTrue(db.get(2L));
+		assertEquals(1, transactionManager.commits);
+	}
+
+	// 保存前でもクリックした結果が見える
+	@Test
+	void readsSeePendingFlips() {
+		queue.toggle(1L);
+
+		assertTrue(read().get(1L));
+		assertFalse(read().get(2L));
+		assertFalse(db.get(1L));
+	}
+
+	// DBを読んだ後 (コミット前の値) に保存が終わっても、正しい値が見える
+	@Test
+	void readBeforeCommitAppliedAfterFlush() {
+		queue.toggle(1L);
+
+		Map<Long, Boolean> view = read(() -> queue.flush());
+
+		assertTrue(db.get(1L));
+		assertTrue(view.get(1L));
+	}
+
+	// 保存トランザクションのコミット直前・直後に読んでも、反転が二重にも漏れもしない
+	@Test
+	void readsDuringFlushCommit() {
+		AtomicReference<Map<Long, Boolean>> beforeCommit = new AtomicReference<>();
+		AtomicReference<Map<Long, Boolean>> afterCommit = new AtomicReference<>();
+		transactionManager.beforeCommit = () -> beforeCommit.set(read());
+		transactionManager.afterCommit = () -> afterCommit.set(read());
+
+		queue.toggle(1L);
+		queue.flush();
+
+		assertTrue(beforeCommit.get().get(1L));
+		assertTrue(afterCommit.get().get(1L));
+		assertTrue(read().get(1L));
+	}
+
+	// 保存待ちのクリックと保存中のクリックが重なっても正しく合成される
+	@Test
+	void flipsDuringFlushAreLayeredOnTop() {
+		transactionManager.beforeCommit = () -> {
+			queue.toggle(1L);
+			assertFalse(read().get(1L));
+		};
+
+		queue.toggle(1L);
+		queue.flush();
+		transactionManager.beforeCommit = () -> {};
+
+		assertTrue(db.get(1L));
+		assertFalse(read().get(1L));
+		queue.flush();
+		assertFalse(db.get(1L));
+	}
+
+	// 保存に失敗した反転はキューに戻り、表示も変わらない
+	@Test
+	void failedFlushIsRequeued() {
+		transactionManager.failCommits = 1;
+		queue.toggle(1L);
+
+		assertThrows(TransactionSystemException.class, queue::flush);
+		assertFalse(db.get(1L));
+		assertTrue(read().get(1L));
+
+		queue.flush();
+		assertTrue(db.get(1L));
+		assertTrue(read().get(1L));
+	}
+
+	// クリックと保存を並行して繰り返しても、クリックした本人には常に自分のクリック結果が見える
+	@Test
+	void readYourWritesUnderConcurrentFlushes() throws Exception {
+		AtomicBoolean running = new AtomicBoolean(true);
+		AtomicReference<Throwable> flusherError = new AtomicReference<>();
+		Thread flusher = new Thread(() -> {
+			while (running.get()) {
+				try {
+					queue.flush();
+				} catch (Throwable e) {
+					flusherError.set(e);
+					return;
+				}
+				Thread.onSpinWait();
+			}
+		});
+		flusher.start();
+
+		boolean expected = false;
+		int clicks = 2001;
+		try {
+			for (int i = 0; i < clicks; i++) {
+				queue.toggle(1L);
+				expected = !expected;
+				assertEquals(expected, read().get(1L), "view after click " + (i + 1));
+			}
+		} finally {
+			running.set(false);
+			flusher.join();
+		}
+
+		assertNull(flusherError.get());
+		queue.flush();
+		assertTrue(db.get(1L));
+		assertTrue(read().get(1L));
+	}
+
+	// 終了時にまとめての保存が失敗し続けても、1件ずつの保存でクリックを失わない
+	@Test
+	void shutdownFallsBackToPerItemWrites() throws Exception {
+		queue.toggle(1L);
+		queue.toggle(2L);
+		transactionManager.failCommits = 3;
+
+		queue.shutdown();
+
+		assertTrue(db.get(1L));
+		assertTrue(db.get(2L));
+	}
+
+	// 終了処理の後のクリックはその場で保存される
+	@Test
+	void togglesAfterShutdownAreWrittenThrough() throws Exception {
+		queue.shutdown();
+		queue.toggle(1L);
+
+		assertTrue(db.get(1L));
+	}
+
+	// --- テスト用 ---
+
+	private Map<Long, Boolean> read() {
+		return read(() -> {});
+	}
+
+	// DBから読み込み (afterLoad はDBを読んだ直後、反映の前に実行する)
+	private Map<Long, Boolean> read(Runnable afterLoad) {
+		List<Task> tasks = queue.readWithPending(() -> {
+			Task task = new Task("タスク");
+			task.setId(10L);
+			task.addProcess(process(1L, db.get(1L)));
+			task.addProcess(process(2L, db.get(2L)));
+			afterLoad.run();
+			return List.of(task);
+		});
+		Map<Long, Boolean> view = new ConcurrentHashMap<>();
+		tasks.get(0).getProcesses().forEach(p -> view.put(p.getId(), p.isCompleted()));
+		return view;
+	}
+
+	private static TaskProcess process(Long id, boolean completed) {
+		TaskProcess p = new TaskProcess();
+		p.setId(id);
+		p.setCompleted(completed);
+		return p;
+	}
+
+	// コミットした時だけ db に書き戻すトランザクションマネージャー
+	private class TestTransactionManager implements PlatformTransactionManager {
+		final List<TaskProcess> working = new ArrayList<>();
+		volatile Runnable beforeCommit = () -> {};
+		volatile Runnable afterCommit = () -> {};
+		volatile int failCommits = 0;
+		volatile int commits = 0;
+
+		@Override
+		public TransactionStatus getTransaction(TransactionDefinition definition) {
+			working.clear();
+			return new SimpleTransactionStatus();
+		}
+
+		@Override
+		public void commit(TransactionStatus status) {
+			if (failCommits > 0) {
+				failCommits--;
+				working.clear();
+				throw new TransactionSystemException("commit failed");
+			}
+			beforeCommit.run();
+			working.forEach(p -> db.put(p.getId(), p.isCompleted()));
+			working.clear();
+			commits++;
+			afterCommit.run();
+		}
+
+		@Override
+		public void rollback(TransactionStatus status) {
+			working.clear();
+		}
+	}
+}
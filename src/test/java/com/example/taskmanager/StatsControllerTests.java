@@ -0,0 +1,16 @@
+package com.example.taskmanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class StatsControllerTests {
+
+	// ?weeks= は 1 〜 MAX_WEEKS に収める (大きな値で日付の計算が失敗しないように)
+	@Test
+	void weeksAreClamped() {
+		assertEquals(1, StatsController.clampWeeks(-5));
+		assertEquals(12, StatsController.clampWeeks(12));
+		assertEquals(StatsController.MAX_WEEKS, StatsController.clampWeeks(Integer.MAX_VALUE));
+	}
+}
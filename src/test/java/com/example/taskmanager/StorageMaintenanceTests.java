@@ -0,0 +1,110 @@
+package com.example.taskmanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// 圧縮は使用中の接続を切らずに、返ってくるのを待ってから行う
+class StorageMaintenanceTests {
+
+	@TempDir Path dir;
+
+	private HikariDataSource dataSource;
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final StorageMaintenance maintenance = new StorageMaintenance();
+
+	@BeforeEach
+	void setUp() {
+		String url = "jdbc:h2:file:" + dir.resolve("taskdb");
+		HikariConfig config = new HikariConfig();
+		config.setJdbcUrl(url);
+		config.setUsername("sa");
+		config.setMinimumIdle(1);
+		config.setMaximumPoolSize(4);
+		config.setAllowPoolSuspension(true);
+		dataSource = new HikariDataSource(config);
+		new JdbcTemplate(dataSource).execute("create table item (id int primary key)");
+
+		ReflectionTestUtils.setField(maintenance, "dataSource", dataSource);
+		ReflectionTestUtils.setField(maintenance, "jdbcTemplate", new JdbcTemplate(dataSource));
+		ReflectionTestUtils.setField(maintenance, "meterRegistry", meterRegistry);
+		ReflectionTestUtils.setField(maintenance, "processToggleQueue", new ProcessToggleQueue());
+		ReflectionTestUtils.setField(maintenance, "datasourceUrl", url);
+		// 使用率に関係なく圧縮する
+		ReflectionTestUtils.setField(maintenance, "compactMaxFillRate", 101.0);
+		ReflectionTestUtils.setField(maintenance, "compactWaitMs", 5000L);
+		maintenance.registerMetrics();
+	}
+
+	@AfterEach
+	void tearDown() {
+		dataSource.close();
+	}
+
+	// 使用中の接続が返ってきてから圧縮し、その間に来た接続の要求は圧縮の後に通る
+	@Test
+	void waitsForActiveConnectionsAndBlocksNewOnes() throws Exception {
+		Connection inUse = dataSource.getConnection();
+		CompletableFuture<Void> compaction = CompletableFuture.runAsync(maintenance::compact);
+		awaitSuspended();
+
+		// 貸し出しを止めている間の要求は待たされる
+		CompletableFuture<Integer> waiting = CompletableFuture.supplyAsync(() -> new JdbcTemplate(dataSource)
+				.queryForObject("select count(*) from item", Integer.class));
+		Thread.sleep(200);
+		assertFalse(waiting.isDone());
+		assertFalse(compaction.isDone());
+
+		// 使用中の接続は圧縮の前なので、まだ使える
+		try (Statement statement = inUse.createStatement()) {
+			statement.execute("insert into item values (1)");
+		}
+		inUse.close();
+
+		compaction.get(10, TimeUnit.SECONDS);
+		assertEquals(1, waiting.get(10, TimeUnit.SECONDS));
+		assertEquals(1, meterRegistry.timer("taskdb.compact.duration").count());
+	}
+
+	// 接続が返ってこなければ圧縮せず、使用中の接続もそのまま使える
+	@Test
+	void postponesWhenConnectionsStayBusy() throws Exception {
+		ReflectionTestUtils.setField(maintenance, "compactWaitMs", 200L);
+		try (Connection inUse = dataSource.getConnection()) {
+			maintenance.compact();
+
+			try (Statement statement = inUse.createStatement();
+					ResultSet rs = statement.executeQuery("select count(*) from item")) {
+				assertTrue(rs.next());
+			}
+		}
+		assertEquals(0, meterRegistry.timer("taskdb.compact.duration").count());
+		assertEquals(0, new JdbcTemplate(dataSource).queryForObject("select count(*) from item", Integer.class));
+	}
+
+	private void awaitSuspended() throws InterruptedException {
+		// 圧縮用の接続を借りた時点で使用中は2本になる
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (dataSource.getHikariPoolMXBean().getActiveConnections() < 2) {
+			assertTrue(System.nanoTime() < deadline, "compaction did not start");
+			Thread.sleep(10);
+		}
+		Thread.sleep(100);
+	}
+}
@@ -0,0 +1,54 @@
+package com.example.taskmanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import java.time.LocalDate;
+
+// リクエストの外 (保存キューのスレッドと同じ状況) でカードを描画できること
+@SpringBootTest(properties = "taskmanager.search.index-file=target/test-search-index.bin")
+class TaskCardRendererTests {
+
+	@Autowired private TaskCardRenderer renderer;
+	@Autowired private TaskRepository taskRepository;
+	@Autowired private ObjectMapper objectMapper;
+
+	@Test
+	void rendersCardAndTimelineItem() throws Exception {
+		Task task = new Task("カードの描画");
+		task.setEndDate(LocalDate.of(2025, 11, 20));
+		task.addProcess(new TaskProcess("実装", LocalDate.of(2025, 11, 10), LocalDate.of(2025, 11, 14)));
+		taskRepository.save(task);
+
+		JsonNode data = objectMapper.readTree(renderer.render(task.getId()));
+
+		assertEquals(task.getId().longValue(), data.get("id").asLong());
+		String html = data.get("html").asText();
+		assertTrue(html.contains("id=\"task-" + task.getId() + "\""), html);
+		assertTrue(html.contains("data-sort-date=\"2025-11-20\""), html);
+		assertTrue(html.contains("hx-post=\"/processes/"), html);
+		assertEquals("Task-" + task.getId(), data.get("timeline").get("id").asText());
+		assertEquals(1, data.get("timeline").get("processes").size());
+	}
+
+	// 完了済み・存在しないタスクはカードを消す印になる
+	@Test
+	void completedOrMissingTasksAreRemoved() throws Exception {
+		Task task = new Task("完了済み");
+		task.setCompleted(true);
+		taskRepository.save(task);
+
+		JsonNode completed = objectMapper.readTree(renderer.render(task.getId()));
+		assertTrue(completed.get("removed").asBoolean());
+		assertFalse(completed.has("html"));
+
+		JsonNode missing = objectMapper.readTree(renderer.render(-1L));
+		assertTrue(missing.get("removed").asBoolean());
+	}
+}
@@ -0,0 +1,50 @@
+package com.example.taskmanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.ui.ExtendedModelMap;
+import java.util.Optional;
+
+// 完了済みのタスクは編集できない (完了実績の集計とずれないように)
+class TaskControllerTests {
+
+	private final TaskRepository taskRepository = mock(TaskRepository.class);
+	private final TaskController controller = new TaskController();
+	private final Task completed = new Task("完了済み");
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(controller, "taskRepository", taskRepository);
+		ReflectionTestUtils.setField(controller, "genreRepository", mock(GenreRepository.class));
+		completed.setId(1L);
+		completed.setCompleted(true);
+		when(taskRepository.findById(1L)).thenReturn(Optional.of(completed));
+	}
+
+	@Test
+	void editFormIsNotShownForCompletedTask() {
+		ExtendedModelMap model = new ExtendedModelMap();
+
+		assertEquals("redirect:/tasks", controller.editTaskForm(1L, model));
+		assertFalse(model.containsAttribute("task"));
+	}
+
+	@Test
+	void updateIsRefusedForCompletedTask() {
+		String view = controller.updateTask(1L, "変更後", "概要", 1L, null, null,
+				null, null, null, null, null, null);
+
+		assertEquals("redirect:/archive", view);
+		assertEquals("完了済み", completed.getTitle());
+		verify(taskRepository, never()).save(any());
+	}
+}
@@ -0,0 +1,180 @@
+package com.example.taskmanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+class TaskEventPublisherTests {
+
+	private final TaskEventPublisher publisher = new TaskEventPublisher();
+
+	@AfterEach
+	void tearDown() {
+		publisher.shutdown();
+	}
+
+	// 大量の待機中クライアントへの配信にかかる時間を計測する (結果はレポートに出力)
+	@Test
+	void fanOutLatency(TestReporter reporter) throws Exception {
+		int subscribers = 5000;
+		CountDownLatch received = new CountDownLatch(subscribers);
+		for (int i = 0; i < subscribers; i++) {
+			publisher.register(new SseEmitter(0L) {
+				@Override
+				public void send(SseEventBuilder builder) {
+					builder.build();
+					received.countDown();
+				}
+			});
+		}
+
+		long start = System.nanoTime();
+		publisher.broadcast(TaskEventPublisher.UPDATED, "1");
+		assertTrue(received.await(30, TimeUnit.SECONDS), "not every subscriber received the event");
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		reporter.publishEntry("sseFanOut", subscribers + " subscribers in " + elapsedMillis + " ms");
+	}
+
+	// 送信が詰まったクライアントがいても、他のクライアントには届く
+	@Test
+	void stalledSubscriberDoesNotBlockOthers() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		publisher.register(new SseEmitter(0L) {
+			@Override
+			public void send(SseEventBuilder builder) throws IOException {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					throw new IOException(e);
+				}
+			}
+		});
+		CountDownLatch received = new CountDownLatch(1);
+		publisher.register(new SseEmitter(0L) {
+			@Override
+			public void send(SseEventBuilder builder) {
+				received.countDown();
+			}
+		});
+
+		publisher.broadcast(TaskEventPublisher.UPDATED, "1");
+		assertTrue(received.await(10, TimeUnit.SECONDS));
+		release.countDown();
+	}
+
+	// 送信待ちが上限を超えたクライアントは切断される
+	@Test
+	void dropsSubscriberThatFallsBehind() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		publisher.register(new SseEmitter(0L) {
+			@Override
+			public void send(SseEventBuilder builder) throws IOException {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					throw new IOException(e);
+				}
+			}
+		});
+
+		for (int i = 0; i <= TaskEventPublisher.MAX_QUEUED + 1; i++) {
+			publisher.broadcast(TaskEventPublisher.UPDATED, String.valueOf(i));
+		}
+		assertEquals(0, publisher.subscriberCount());
+		release.countDown();
+	}
+
+	// 送信に失敗したクライアントは購読から外れる (ハートビートで検出)
+	@Test
+	void heartbeatRemovesDisconnectedSubscribers() throws Exception {
+		publisher.register(new SseEmitter(0L) {
+			@Override
+			public void send(SseEventBuilder builder) throws IOException {
+				throw new IOException("disconnected");
+			}
+		});
+		publisher.register(new SseEmitter(0L) {
+			@Override
+			public void send(SseEventBuilder builder) {
+			}
+		});
+
+		publisher.heartbeat();
+		awaitCondition(() -> publisher.subscriberCount() == 1);
+	}
+
+	// カードの描画は購読者の数によらず1回だけで、全員に同じデータが届く
+	@Test
+	void rendersOnceForAllSubscribers() throws Exception {
+		TaskCardRenderer renderer = mock(TaskCardRenderer.class);
+		when(renderer.render(1L)).thenReturn("{\"id\":1,\"html\":\"<div></div>\"}");
+		ReflectionTestUtils.setField(publisher, "taskCardRenderer", renderer);
+
+		int subscribers = 3;
+		List<String> received = new CopyOnWriteArrayList<>();
+		CountDownLatch latch = new CountDownLatch(subscribers);
+		for (int i = 0; i < subscribers; i++) {
+			publisher.register(new SseEmitter(0L) {
+				@Override
+				public void send(SseEventBuilder builder) {
+					StringBuilder data = new StringBuilder();
+					builder.build().forEach(d -> data.append(d.getData()));
+					received.add(data.toString());
+					latch.countDown();
+				}
+			});
+		}
+
+		publisher.publish(TaskEventPublisher.UPDATED, 1L);
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+		verify(renderer, times(1)).render(1L);
+		assertEquals(subscribers, received.size());
+		received.forEach(data -> assertTrue(data.contains("{\"id\":1,\"html\":\"<div></div>\"}"), data));
+	}
+
+	// 完了・削除はカードを消す印だけを送り、描画しない
+	@Test
+	void completedAndDeletedAreNotRendered() {
+		TaskCardRenderer renderer = mock(TaskCardRenderer.class);
+		ReflectionTestUtils.setField(publisher, "taskCardRenderer", renderer);
+		publisher.register(new SseEmitter(0L) {
+			@Override
+			public void send(SseEventBuilder builder) {
+			}
+		});
+
+		publisher.publish(TaskEventPublisher.COMPLETED, 1L);
+		publisher.publish(TaskEventPublisher.DELETED, 2L);
+
+		verify(renderer).removed(1L);
+		verify(renderer).removed(2L);
+		verify(renderer, never()).render(1L);
+		verify(renderer, never()).render(2L);
+	}
+
+	private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.nanoTime() < deadline, "condition not met in time");
+			Thread.sleep(10);
+		}
+	}
+}
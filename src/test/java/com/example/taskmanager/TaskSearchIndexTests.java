@@ -0,0 +1,154 @@
+package com.example.taskmanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+class TaskSearchIndexTests {
+
+	// 英数字は単語単位、全角/大文字は正規化される
+	@Test
+	void tokenizesLatinWordsWithNormalization() {
+		assertEquals(Set.of("api", "v2"), TaskSearchIndex.tokenize("ＡＰＩ v2", false));
+	}
+
+	// 日本語はバイグラム (クエリ側は1文字を含めない)
+	@Test
+	void tokenizesCjkIntoBigramsForQueries() {
+		assertEquals(Set.of("設計", "計書"), TaskSearchIndex.tokenize("設計書", false));
+	}
+
+	// 文書側は1文字の語も登録する
+	@Test
+	void documentsAlsoContainCjkUnigrams() {
+		assertEquals(Set.of("設", "計", "書", "設計", "計書"), TaskSearchIndex.tokenize("設計書", true));
+	}
+
+	// 1文字だけのクエリは1文字の語になる
+	@Test
+	void singleCjkCharacterQuery() {
+		assertEquals(Set.of("図"), TaskSearchIndex.tokenize("図", false));
+	}
+
+	// 英数字と日本語の混在、記号での区切り、長音記号
+	@Test
+	void splitsMixedScripts() {
+		assertEquals(Set.of("api", "設計", "デー", "ータ"),
+				TaskSearchIndex.tokenize("API設計・データ", false));
+	}
+
+	@Test
+	void searchesTitleDescriptionProcessesAndUrlNames() {
+		TaskSearchIndex index = new TaskSearchIndex();
+		index.index(task(1L, "トップページのデザイン", "配色を決める", "ワイヤーフレーム", "Figma"));
+		index.index(task(2L, "ログイン画面の実装", "API と連携", "単体テスト", "GitHubブランチ"));
+
+		assertEquals(List.of(1L), index.search("デザイン"));
+		assertEquals(List.of(1L), index.search("配色"));
+		assertEquals(List.of(2L), index.search("テスト"));
+		assertEquals(List.of(1L), index.search("figma"));
+		assertEquals(List.of(2L), index.search("ｇｉｔｈｕｂ"));
+		assertEquals(List.of(2L, 1L), index.search("の"));
+		assertTrue(index.search("存在しない").isEmpty());
+	}
+
+	@Test
+	void updatesAndRemovesIncrementally() {
+		TaskSearchIndex index = new TaskSearchIndex();
+		index.index(task(1L, "バナー制作", null, null, null));
+		index.index(task(1L, "ロゴ制作", null, null, null));
+
+		assertTrue(index.search("バナー").isEmpty());
+		assertEquals(List.of(1L), index.search("ロゴ"));
+
+		index.remove(1L);
+		assertTrue(index.search("ロゴ").isEmpty());
+	}
+
+	// DBとタスク数・最大IDが合うスナップショットは、そのまま使う (全タスクを読み込まない)
+	@Test
+	void matchingSnapshotIsUsedWithoutRebuild(@TempDir Path dir) {
+		Path file = dir.resolve("search-index.bin");
+		TaskSearchIndex saved = index(mock(TaskRepository.class), file);
+		saved.index(task(1L, "バナー制作", null, null, null));
+		saved.index(task(5L, "ロゴ制作", "配色を決める", null, null));
+		saved.saveSnapshot();
+
+		TaskRepository repository = mock(TaskRepository.class);
+		when(repository.count()).thenReturn(2L);
+		when(repository.findMaxId()).thenReturn(5L);
+		TaskSearchIndex loaded = index(repository, file);
+		loaded.load();
+
+		verify(repository, never()).findAllBy();
+		assertEquals(List.of(5L, 1L), loaded.search("制作"));
+		assertEquals(List.of(5L), loaded.search("配色"));
+		assertFalse(Files.exists(file));
+	}
+
+	// DBと合わないスナップショットは使わずに作り直す
+	@Test
+	void mismatchedSnapshotIsRebuilt(@TempDir Path dir) {
+		Path file = dir.resolve("search-index.bin");
+		TaskSearchIndex saved = index(mock(TaskRepository.class), file);
+		saved.index(task(1L, "バナー制作", null, null, null));
+		saved.saveSnapshot();
+
+		TaskRepository repository = mock(TaskRepository.class);
+		when(repository.count()).thenReturn(1L);
+		when(repository.findMaxId()).thenReturn(2L);
+		when(repository.findAllBy()).thenReturn(List.of(task(2L, "ロゴ制作", null, null, null)));
+		TaskSearchIndex loaded = index(repository, file);
+		loaded.load();
+
+		assertTrue(loaded.search("バナー").isEmpty());
+		assertEquals(List.of(2L), loaded.search("ロゴ"));
+	}
+
+	// 形式の違うファイル (Java のシリアライズなど) は読まずに作り直す
+	@Test
+	void foreignFileIsIgnored(@TempDir Path dir) throws Exception {
+		Path file = dir.resolve("search-index.bin");
+		try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(file))) {
+			out.writeObject(new HashMap<>());
+		}
+
+		TaskRepository repository = mock(TaskRepository.class);
+		when(repository.findAllBy()).thenReturn(List.of(task(1L, "ロゴ制作", null, null, null)));
+		TaskSearchIndex loaded = index(repository, file);
+		loaded.load();
+
+		assertEquals(List.of(1L), loaded.search("ロゴ"));
+		assertFalse(Files.exists(file));
+	}
+
+	private static TaskSearchIndex index(TaskRepository repository, Path file) {
+		TaskSearchIndex index = new TaskSearchIndex();
+		ReflectionTestUtils.setField(index, "taskRepository", repository);
+		ReflectionTestUtils.setField(index, "indexFile", file.toString());
+		return index;
+	}
+
+	private static Task task(Long id, String title, String description, String processName, String urlName) {
+		Task task = new Task(title);
+		task.setId(id);
+		task.setDescription(description);
+		if (processName != null) task.addProcess(new TaskProcess(processName, null, null));
+		if (urlName != null) task.addRelatedURL(new RelatedURL(urlName, "http://example.com"));
+		return task;
+	}
+}
@@ -0,0 +1,84 @@
+package com.example.taskmanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import java.time.LocalDate;
+import java.util.List;
+
+class TaskTimelineIndexTests {
+
+	private static final LocalDate FROM = LocalDate.of(2025, 11, 10);
+	private static final LocalDate TO = LocalDate.of(2025, 11, 16);
+
+	// 表示期間の両端は含む (端にちょうど触れる期間も重なりとみなす)
+	@Test
+	void windowBoundsAreInclusive() {
+		TaskTimelineIndex index = new TaskTimelineIndex();
+		index.index(task(1L, FROM.minusDays(5), FROM));            // 終了日 = from
+		index.index(task(2L, TO, TO.plusDays(5)));                 // 開始日 = to
+		index.index(task(3L, FROM.minusDays(5), FROM.minusDays(1))); // from の前日に終わる
+		index.index(task(4L, TO.plusDays(1), TO.plusDays(5)));     // to の翌日に始まる
+		index.index(task(5L, FROM.minusDays(30), TO.plusDays(30))); // 表示期間を覆う
+		index.index(task(6L, FROM.plusDays(2), FROM.plusDays(2))); // 期間内の1日だけ
+
+		assertEquals(List.of(1L, 2L, 5L, 6L), sorted(index.findOverlapping(FROM, TO)));
+	}
+
+	// 1日だけの表示期間
+	@Test
+	void singleDayWindow() {
+		TaskTimelineIndex index = new TaskTimelineIndex();
+		index.index(task(1L, FROM, FROM));
+		index.index(task(2L, FROM.plusDays(1), FROM.plusDays(1)));
+
+		assertEquals(List.of(1L), index.findOverlapping(FROM, FROM));
+		assertTrue(index.findOverlapping(TO, FROM).isEmpty());
+	}
+
+	// 開始日がなくても工程から補完して登録される
+	@Test
+	void spanFallsBackToProcesses() {
+		TaskTimelineIndex index = new TaskTimelineIndex();
+		Task task = task(1L, null, null);
+		task.addProcess(new TaskProcess("デザイン", FROM.minusDays(3), FROM));
+		task.addProcess(new TaskProcess("実装", FROM.plusDays(1), FROM.plusDays(4)));
+		index.index(task);
+
+		assertEquals(List.of(1L), index.findOverlapping(FROM, FROM));
+		assertEquals(List.of(1L), index.findOverlapping(FROM.plusDays(4), TO));
+		assertTrue(index.findOverlapping(FROM.plusDays(5), TO).isEmpty());
+	}
+
+	// 長いタスクが完了・削除されたら、最大日数も元に戻る
+	@Test
+	void maxSpanShrinksWhenLongTasksLeave() {
+		TaskTimelineIndex index = new TaskTimelineIndex();
+		index.index(task(1L, FROM, FROM.plusDays(2)));
+		index.index(task(2L, FROM.minusYears(1), TO));
+		index.index(task(3L, FROM.minusYears(1), TO));
+		assertTrue(index.findOverlapping(TO.plusDays(1), TO.plusDays(1)).isEmpty());
+
+		index.remove(2L);
+		assertTrue(index.maxSpanDays() > 2);
+
+		Task completed = task(3L, FROM.minusYears(1), TO);
+		completed.setCompleted(true);
+		index.index(completed);
+		assertEquals(2, index.maxSpanDays());
+		assertEquals(List.of(1L), index.findOverlapping(FROM, TO));
+	}
+
+	private static Task task(Long id, LocalDate start, LocalDate end) {
+		Task task = new Task("タスク" + id);
+		task.setId(id);
+		task.setStartDate(start);
+		task.setEndDate(end);
+		return task;
+	}
+
+	private static List<Long> sorted(List<Long> ids) {
+		return ids.stream().sorted().toList();
+	}
+}
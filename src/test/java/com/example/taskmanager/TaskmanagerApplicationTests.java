@@ -3,7 +3,7 @@ package com.example.taskmanager;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "taskmanager.search.index-file=target/test-search-index.bin")
 class TaskmanagerApplicationTests {
 
 	@Test